@@ -0,0 +1,444 @@
+/**
+ * ASTVisitor
+ *
+ * A pass over the AST, run by ASTWalker.  The walker calls enter on each
+ * node before walking its kids and leave after them.  There is an enter
+ * and a leave for every class of node; each passes the node on to the
+ * one for its superclass (PlusNode to BinaryExpNode to ExpNode, say), and
+ * from there to enterNode and leaveNode, so a pass only overrides the
+ * methods for the nodes it cares about.
+ *
+ * If enter returns false the node's kids are skipped; leave is still
+ * called.
+ */
+abstract class ASTVisitor {
+    public boolean enterNode(ASTnode node) {
+        return true;
+    }
+
+    public void leaveNode(ASTnode node) {
+    }
+
+    // program structure and lists
+    public boolean enter(ProgramNode node) {
+        return enterNode(node);
+    }
+
+    public void leave(ProgramNode node) {
+        leaveNode(node);
+    }
+
+    public boolean enter(DeclListNode node) {
+        return enterNode(node);
+    }
+
+    public void leave(DeclListNode node) {
+        leaveNode(node);
+    }
+
+    public boolean enter(FormalsListNode node) {
+        return enterNode(node);
+    }
+
+    public void leave(FormalsListNode node) {
+        leaveNode(node);
+    }
+
+    public boolean enter(FnBodyNode node) {
+        return enterNode(node);
+    }
+
+    public void leave(FnBodyNode node) {
+        leaveNode(node);
+    }
+
+    public boolean enter(StmtListNode node) {
+        return enterNode(node);
+    }
+
+    public void leave(StmtListNode node) {
+        leaveNode(node);
+    }
+
+    public boolean enter(ExpListNode node) {
+        return enterNode(node);
+    }
+
+    public void leave(ExpListNode node) {
+        leaveNode(node);
+    }
+
+    // DeclNode and its subclasses
+    public boolean enter(DeclNode node) {
+        return enterNode(node);
+    }
+
+    public void leave(DeclNode node) {
+        leaveNode(node);
+    }
+
+    public boolean enter(VarDeclNode node) {
+        return enter((DeclNode)node);
+    }
+
+    public void leave(VarDeclNode node) {
+        leave((DeclNode)node);
+    }
+
+    public boolean enter(FnDeclNode node) {
+        return enter((DeclNode)node);
+    }
+
+    public void leave(FnDeclNode node) {
+        leave((DeclNode)node);
+    }
+
+    public boolean enter(FormalDeclNode node) {
+        return enter((DeclNode)node);
+    }
+
+    public void leave(FormalDeclNode node) {
+        leave((DeclNode)node);
+    }
+
+    public boolean enter(StructDeclNode node) {
+        return enter((DeclNode)node);
+    }
+
+    public void leave(StructDeclNode node) {
+        leave((DeclNode)node);
+    }
+
+    // TypeNode and its subclasses
+    public boolean enter(TypeNode node) {
+        return enterNode(node);
+    }
+
+    public void leave(TypeNode node) {
+        leaveNode(node);
+    }
+
+    public boolean enter(IntNode node) {
+        return enter((TypeNode)node);
+    }
+
+    public void leave(IntNode node) {
+        leave((TypeNode)node);
+    }
+
+    public boolean enter(BoolNode node) {
+        return enter((TypeNode)node);
+    }
+
+    public void leave(BoolNode node) {
+        leave((TypeNode)node);
+    }
+
+    public boolean enter(VoidNode node) {
+        return enter((TypeNode)node);
+    }
+
+    public void leave(VoidNode node) {
+        leave((TypeNode)node);
+    }
+
+    public boolean enter(StructNode node) {
+        return enter((TypeNode)node);
+    }
+
+    public void leave(StructNode node) {
+        leave((TypeNode)node);
+    }
+
+    // StmtNode and its subclasses
+    public boolean enter(StmtNode node) {
+        return enterNode(node);
+    }
+
+    public void leave(StmtNode node) {
+        leaveNode(node);
+    }
+
+    public boolean enter(AssignStmtNode node) {
+        return enter((StmtNode)node);
+    }
+
+    public void leave(AssignStmtNode node) {
+        leave((StmtNode)node);
+    }
+
+    public boolean enter(PostIncStmtNode node) {
+        return enter((StmtNode)node);
+    }
+
+    public void leave(PostIncStmtNode node) {
+        leave((StmtNode)node);
+    }
+
+    public boolean enter(PostDecStmtNode node) {
+        return enter((StmtNode)node);
+    }
+
+    public void leave(PostDecStmtNode node) {
+        leave((StmtNode)node);
+    }
+
+    public boolean enter(ReadStmtNode node) {
+        return enter((StmtNode)node);
+    }
+
+    public void leave(ReadStmtNode node) {
+        leave((StmtNode)node);
+    }
+
+    public boolean enter(WriteStmtNode node) {
+        return enter((StmtNode)node);
+    }
+
+    public void leave(WriteStmtNode node) {
+        leave((StmtNode)node);
+    }
+
+    public boolean enter(IfStmtNode node) {
+        return enter((StmtNode)node);
+    }
+
+    public void leave(IfStmtNode node) {
+        leave((StmtNode)node);
+    }
+
+    public boolean enter(IfElseStmtNode node) {
+        return enter((StmtNode)node);
+    }
+
+    public void leave(IfElseStmtNode node) {
+        leave((StmtNode)node);
+    }
+
+    public boolean enter(WhileStmtNode node) {
+        return enter((StmtNode)node);
+    }
+
+    public void leave(WhileStmtNode node) {
+        leave((StmtNode)node);
+    }
+
+    public boolean enter(CallStmtNode node) {
+        return enter((StmtNode)node);
+    }
+
+    public void leave(CallStmtNode node) {
+        leave((StmtNode)node);
+    }
+
+    public boolean enter(ReturnStmtNode node) {
+        return enter((StmtNode)node);
+    }
+
+    public void leave(ReturnStmtNode node) {
+        leave((StmtNode)node);
+    }
+
+    // ExpNode and its subclasses
+    public boolean enter(ExpNode node) {
+        return enterNode(node);
+    }
+
+    public void leave(ExpNode node) {
+        leaveNode(node);
+    }
+
+    public boolean enter(IntLitNode node) {
+        return enter((ExpNode)node);
+    }
+
+    public void leave(IntLitNode node) {
+        leave((ExpNode)node);
+    }
+
+    public boolean enter(StringLitNode node) {
+        return enter((ExpNode)node);
+    }
+
+    public void leave(StringLitNode node) {
+        leave((ExpNode)node);
+    }
+
+    public boolean enter(TrueNode node) {
+        return enter((ExpNode)node);
+    }
+
+    public void leave(TrueNode node) {
+        leave((ExpNode)node);
+    }
+
+    public boolean enter(FalseNode node) {
+        return enter((ExpNode)node);
+    }
+
+    public void leave(FalseNode node) {
+        leave((ExpNode)node);
+    }
+
+    public boolean enter(IdNode node) {
+        return enter((ExpNode)node);
+    }
+
+    public void leave(IdNode node) {
+        leave((ExpNode)node);
+    }
+
+    public boolean enter(DotAccessExpNode node) {
+        return enter((ExpNode)node);
+    }
+
+    public void leave(DotAccessExpNode node) {
+        leave((ExpNode)node);
+    }
+
+    public boolean enter(AssignNode node) {
+        return enter((ExpNode)node);
+    }
+
+    public void leave(AssignNode node) {
+        leave((ExpNode)node);
+    }
+
+    public boolean enter(CallExpNode node) {
+        return enter((ExpNode)node);
+    }
+
+    public void leave(CallExpNode node) {
+        leave((ExpNode)node);
+    }
+
+    // UnaryExpNode and its subclasses
+    public boolean enter(UnaryExpNode node) {
+        return enter((ExpNode)node);
+    }
+
+    public void leave(UnaryExpNode node) {
+        leave((ExpNode)node);
+    }
+
+    public boolean enter(UnaryMinusNode node) {
+        return enter((UnaryExpNode)node);
+    }
+
+    public void leave(UnaryMinusNode node) {
+        leave((UnaryExpNode)node);
+    }
+
+    public boolean enter(NotNode node) {
+        return enter((UnaryExpNode)node);
+    }
+
+    public void leave(NotNode node) {
+        leave((UnaryExpNode)node);
+    }
+
+    // BinaryExpNode and its subclasses
+    public boolean enter(BinaryExpNode node) {
+        return enter((ExpNode)node);
+    }
+
+    public void leave(BinaryExpNode node) {
+        leave((ExpNode)node);
+    }
+
+    public boolean enter(PlusNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(PlusNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(MinusNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(MinusNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(TimesNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(TimesNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(DivideNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(DivideNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(AndNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(AndNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(OrNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(OrNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(EqualsNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(EqualsNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(NotEqualsNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(NotEqualsNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(LessNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(LessNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(GreaterNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(GreaterNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(LessEqNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(LessEqNode node) {
+        leave((BinaryExpNode)node);
+    }
+
+    public boolean enter(GreaterEqNode node) {
+        return enter((BinaryExpNode)node);
+    }
+
+    public void leave(GreaterEqNode node) {
+        leave((BinaryExpNode)node);
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.*;
+
+/**
+ * ASTWalker
+ *
+ * Walks an AST depth first, calling an ASTVisitor's enter and leave for
+ * each node, with the kids of a node visited in source order between the
+ * two.  The walk keeps its own stack of the nodes it is inside rather
+ * than recursing, so no tree is too deep for it, however small the
+ * thread's stack.
+ */
+class ASTWalker {
+    /**
+     * Walks the tree below root (root included) with v.
+     */
+    public static void walk(ASTnode root, ASTVisitor v) {
+        new ASTWalker().run(root, v);
+    }
+
+    /**
+     * Walks the tree below root with v, reusing this walker's stack.  A
+     * walker can be used for any number of walks, but only one at a time.
+     */
+    public void run(ASTnode root, ASTVisitor v) {
+        if (!root.enter(v)) {
+            root.leave(v);
+            return;
+        }
+        push(root);
+        while (myDepth > 0) {
+            int top = myDepth - 1;
+            ASTnode node = myNodes[top];
+            int i = myNext[top];
+            if (i == node.numKids()) {
+                myNodes[top] = null;
+                myDepth = top;
+                node.leave(v);
+                continue;
+            }
+            myNext[top] = i + 1;
+            ASTnode kid = node.kid(i);
+            if (kid == null)
+                continue;  // an optional kid that isn't there
+            if (kid.enter(v))
+                push(kid);
+            else
+                kid.leave(v);
+        }
+    }
+
+    private void push(ASTnode node) {
+        if (myDepth == myNodes.length) {
+            myNodes = Arrays.copyOf(myNodes, 2 * myDepth);
+            myNext = Arrays.copyOf(myNext, 2 * myDepth);
+        }
+        myNodes[myDepth] = node;
+        myNext[myDepth] = 0;
+        myDepth++;
+    }
+
+    // the nodes being walked, root first, and the index of the next kid
+    // of each to walk
+    private ASTnode[] myNodes = new ASTnode[64];
+    private int[] myNext = new int[64];
+    private int myDepth;
+}
@@ -0,0 +1,202 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * BatchCompiler
+ *
+ * Compiles many source files in one JVM.  Every file gets its own
+ * compilation (scanner, parser, Diagnostics) and the files are spread over
+ * a work-stealing pool with one worker per core.  Each file's messages are
+ * buffered and printed, together with a status line, in the order the files
+ * were given, followed by a summary with the total wall time.
+ *
+ * Inputs may be source files, directories (every .moo file below them is
+ * compiled) or @listfiles naming one input per line.  The unparsed version
+ * of a file is written to the output directory, under the path the file
+ * has relative to the directory it was found in, with .moo replaced by .out.
+ * If two inputs would be written to the same file (a/x.moo and b/x.moo
+ * given as files, say), nothing is compiled.  With the --stats option,
+ * the files' reports are written as one JSON array, in the same order.
+ */
+class BatchCompiler {
+    public BatchCompiler(File outDir, CompileOptions options) {
+        myOutDir = outDir;
+        myOptions = options;
+    }
+
+    /**
+     * Compiles the given inputs and returns 0 if every file compiled
+     * without errors, 1 otherwise, or -1, having compiled nothing, if two
+     * inputs would be written to the same file.
+     */
+    public int run(List<String> inputs, PrintStream log) throws IOException {
+        List<Job> jobs = new ArrayList<Job>();
+        for (String input : inputs) {
+            collect(input, jobs);
+        }
+        if (!checkOutputs(jobs, log))
+            return -1;
+
+        long start = System.nanoTime();
+        ForkJoinPool pool =
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (Job job : jobs) {
+                pool.execute(job);
+            }
+            int failed = 0;
+            for (Job job : jobs) {
+                job.join();
+                log.print(job.messages);
+                log.println(job.statusLine());
+                if (job.status != Compiler.SUCCESS)
+                    failed++;
+            }
+            long millis = (System.nanoTime() - start) / 1000000;
+            log.println(jobs.size() + " files compiled, " + failed +
+                        " with errors, in " + millis + " ms");
+            if (myOptions.stats)
+                myOptions.writeStats(statsReport(jobs), log);
+            return failed == 0 ? 0 : 1;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // reports every pair of jobs that would write the same output file;
+    // returns false if there are any
+    private static boolean checkOutputs(List<Job> jobs, PrintStream log)
+        throws IOException {
+        Map<String, Job> writers = new HashMap<String, Job>();
+        boolean ok = true;
+        for (Job job : jobs) {
+            Job other = writers.put(job.out.getCanonicalPath(), job);
+            if (other != null) {
+                log.println(other.in.getPath() + " and " + job.in.getPath() +
+                            " would both be written to " + job.out.getPath());
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    private static String statsReport(List<Job> jobs) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < jobs.size(); i++) {
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append(jobs.get(i).stats.toJson());
+        }
+        return sb.append("\n]").toString();
+    }
+
+    // adds a job for every source file named by input
+    private void collect(String input, List<Job> jobs) throws IOException {
+        if (input.startsWith("@")) {
+            BufferedReader list = new BufferedReader(
+                                      new FileReader(input.substring(1)));
+            try {
+                String line;
+                while ((line = list.readLine()) != null) {
+                    line = line.trim();
+                    if (line.length() > 0)
+                        collect(line, jobs);
+                }
+            } finally {
+                list.close();
+            }
+            return;
+        }
+
+        File file = new File(input);
+        if (file.isDirectory()) {
+            collect(file, "", jobs);
+        } else {
+            jobs.add(newJob(file, outFile(file.getName())));
+        }
+    }
+
+    // adds a job for every .moo file below dir, whose path relative to the
+    // top-level input directory is prefix
+    private void collect(File dir, String prefix, List<Job> jobs) {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+        Arrays.sort(files);
+        for (File file : files) {
+            String path = prefix + file.getName();
+            if (file.isDirectory()) {
+                collect(file, path + File.separator, jobs);
+            } else if (file.getName().endsWith(".moo")) {
+                jobs.add(newJob(file, outFile(path)));
+            }
+        }
+    }
+
+    private Job newJob(File in, File out) {
+        return new Job(in, out, myOptions, myOptions.newStats(in.getPath()));
+    }
+
+    private File outFile(String path) {
+        if (path.endsWith(".moo"))
+            path = path.substring(0, path.length() - ".moo".length());
+        return new File(myOutDir, path + ".out");
+    }
+
+    private File myOutDir;
+    private CompileOptions myOptions;
+
+    /**
+     * The compilation of one file.  Its messages are kept until the batch
+     * prints them, so the output of concurrent compilations never mixes.
+     */
+    private static class Job extends RecursiveAction {
+        Job(File in, File out, CompileOptions options, CompileStats stats) {
+            this.in = in;
+            this.out = out;
+            this.options = options;
+            this.stats = stats;
+        }
+
+        protected void compute() {
+            long start = System.nanoTime();
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            PrintStream msgs = new PrintStream(buf, true);
+            try {
+                File dir = out.getParentFile();
+                if (dir != null)
+                    dir.mkdirs();
+                status = Compiler.compile(in.getPath(), out.getPath(),
+                                          options, new Diagnostics(), stats,
+                                          msgs, msgs);
+            } catch (Throwable ex) {
+                // even an Error fails only this file, not the whole batch
+                msgs.println("Internal compiler error: " + ex);
+                status = Compiler.FAILED;
+                if (stats != null)
+                    stats.setStatus(status);
+            }
+            millis = (System.nanoTime() - start) / 1000000;
+            messages = buf.toString();
+        }
+
+        String statusLine() {
+            String result;
+            if (status == Compiler.SUCCESS)
+                result = "ok     ";
+            else if (status == Compiler.ERRORS)
+                result = "errors ";
+            else
+                result = "failed ";
+            return result + in.getPath() + " (" + millis + " ms)";
+        }
+
+        final File in;
+        final File out;
+        final CompileOptions options;
+        final CompileStats stats;  // null unless stats were asked for
+        int status;
+        long millis;
+        String messages;
+    }
+}
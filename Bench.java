@@ -0,0 +1,814 @@
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java_cup.runtime.*;
+
+/**
+ * Bench
+ *
+ * Micro-benchmarks for the phases of the compiler, run on programs from
+ * MooGen.  Each benchmark is run for a number of warm-up iterations and
+ * then for a number of measured ones, and reports the mean and best time
+ * per iteration, its throughput, the bytes allocated per iteration, and
+ * the number of garbage collections (and the time they took) during all
+ * the measured iterations.
+ *
+ * usage: java Bench [option value ...] [benchmark ...]
+ *
+ * options:
+ *    --warmup n, --iterations n   iterations before and during timing
+ *    --stack mb                   stack for the recursive walks in deep
+ *    any MooGen setting           --functions, --depth, --bytes, --seed, ...
+ *
+ * benchmarks (default: scan parse names unparse symtable):
+ *    scan         scan with Yylex
+ *    scan-fast    scan with FastScanner
+ *    scan-file    scan from a file through a FileReader
+ *    scan-mmap    scan from a file through a MappedSourceReader
+ *    scan-alloc   bytes allocated per token by Yylex and FastScanner
+ *    intlit       scan short, long and overflowing integer literals
+ *    parse        parse
+ *    parse-pipe   parse with a PipelinedScanner
+ *    crossover    parse vs parse-pipe on growing programs
+ *    stress       parse up to 100000 formals or statements; stack depth
+ *    names        name analysis with NameAnalyzer
+ *    names-par    name analysis with ParallelNameAnalyzer
+ *    names-rec    name analysis with the recursive nameAnalysis
+ *    unparse      unparse with Unparser
+ *    unparse-rec  unparse with the recursive unparse
+ *    ast          heap, names and unparse for 1000000 statements
+ *    deep         both walks on very deep expressions and blocks; --stack
+ *    output       unparse 100MB to a file, stream vs direct; --bytes
+ *    stream       heap held compiling 20MB whole vs --stream; --bytes
+ *    symtable     lookups through 1000 nested scopes
+ *    frozen       FrozenScope vs a locked SymTable, 1, 8 and 32 threads
+ *    scopes       addScope/removeScope cycles and lookups
+ */
+public class Bench {
+    public static void main(String[] args) throws Exception {
+        Bench bench = new Bench();
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--") && i + 1 < args.length)
+                bench.option(args[i].substring(2), args[++i]);
+            else
+                names.add(args[i]);
+        }
+        if (names.isEmpty())
+            names = Arrays.asList("scan", "parse", "names", "unparse",
+                                  "symtable");
+        for (String name : names) {
+            bench.run(name);
+        }
+    }
+
+    private void option(String name, String value) {
+        long n = Long.parseLong(value);
+        if (name.equals("warmup"))           myWarmup = (int)n;
+        else if (name.equals("iterations"))  myIterations = (int)n;
+        else if (name.equals("stack"))       myStack = n << 20;
+        else if (!myGen.option(name, n))
+            throw new IllegalArgumentException("unknown option --" + name);
+    }
+
+    private void run(String name) throws Exception {
+        if (name.equals("scan")) {
+            measure(name, source().length(), "chars", new Task() {
+                void run() throws Exception {
+                    Yylex scanner = scanner();
+                    while (scanner.next_token().sym != sym.EOF) {
+                        sink++;
+                    }
+                }
+            });
+        } else if (name.equals("scan-fast")) {
+            measure(name, source().length(), "chars", new Task() {
+                void run() throws Exception {
+                    FastScanner scanner = new FastScanner(
+                        new StringReader(source()), new Diagnostics());
+                    while (scanner.next_token().sym != sym.EOF) {
+                        sink++;
+                    }
+                }
+            });
+        } else if (name.equals("scan-file") || name.equals("scan-mmap")) {
+            final CompileOptions options = new CompileOptions();
+            options.mmapInput = name.equals("scan-mmap");
+            final String file = sourceFile();
+            measure(name, source().length(), "chars", new Task() {
+                void run() throws Exception {
+                    Reader in = options.openInput(file);
+                    try {
+                        Yylex scanner = new Yylex(in, new Diagnostics());
+                        while (scanner.next_token().sym != sym.EOF) {
+                            sink++;
+                        }
+                    } finally {
+                        in.close();
+                    }
+                }
+            });
+        } else if (name.equals("parse")) {
+            measure(name, source().length(), "chars", new Task() {
+                void run() throws Exception {
+                    sink += parse(false).hashCode();
+                }
+            });
+        } else if (name.equals("parse-pipe")) {
+            measure(name, source().length(), "chars", new Task() {
+                void run() throws Exception {
+                    sink += parse(true).hashCode();
+                }
+            });
+        } else if (name.equals("crossover")) {
+            benchCrossover();
+        } else if (name.equals("intlit")) {
+            benchIntLiterals();
+        } else if (name.equals("scan-alloc")) {
+            benchScanAlloc();
+        } else if (name.equals("stress")) {
+            benchStress();
+        } else if (name.equals("ast")) {
+            benchAst();
+        } else if (name.equals("deep")) {
+            benchDeep();
+        } else if (name.equals("names")) {
+            final ProgramNode program = parse(false);
+            measure(name, source().length(), "chars", new Task() {
+                void run() {
+                    analyze(program);
+                }
+            });
+        } else if (name.equals("names-par")) {
+            final ProgramNode program = parse(false);
+            measure(name, source().length(), "chars", new Task() {
+                void run() {
+                    new ParallelNameAnalyzer(new SymTable(), new Diagnostics(),
+                                             ForkJoinPool.commonPool())
+                        .analyze(program);
+                }
+            });
+        } else if (name.equals("names-rec")) {
+            final ProgramNode program = parse(false);
+            measure(name, source().length(), "chars", new Task() {
+                void run() {
+                    program.nameAnalysis(new Diagnostics());
+                }
+            });
+        } else if (name.equals("unparse")) {
+            final ProgramNode program = parse(false);
+            analyze(program);
+            final CountingWriter out = new CountingWriter();
+            program.unparse(new PrintWriter(out), 0);
+            measure(name, out.count, "chars", new Task() {
+                void run() {
+                    unparse(program);
+                }
+            });
+        } else if (name.equals("unparse-rec")) {
+            final ProgramNode program = parse(false);
+            analyze(program);
+            final CountingWriter out = new CountingWriter();
+            program.unparse(new PrintWriter(out), 0);
+            measure(name, out.count, "chars", new Task() {
+                void run() {
+                    PrintWriter p = new PrintWriter(new CountingWriter());
+                    program.unparse(p, 0);
+                    p.flush();
+                }
+            });
+        } else if (name.equals("output")) {
+            benchOutput();
+        } else if (name.equals("stream")) {
+            benchStream();
+        } else if (name.equals("symtable")) {
+            benchSymTable();
+        } else if (name.equals("frozen")) {
+            benchFrozen();
+        } else if (name.equals("scopes")) {
+            benchScopes();
+        } else {
+            throw new IllegalArgumentException("unknown benchmark " + name);
+        }
+    }
+
+    // parse and parse-pipe on programs of 1K to 10M bytes
+    private void benchCrossover() throws Exception {
+        long saved = myGen.bytes;
+        long crossover = 0;
+        for (long size = 1000; size <= 10000000; size *= 10) {
+            myGen.bytes = size;
+            mySource = null;
+            double single = measure("parse " + size, source().length(),
+                                    "chars", new Task() {
+                void run() throws Exception {
+                    sink += parse(false).hashCode();
+                }
+            });
+            double piped = measure("pipe " + size, source().length(),
+                                   "chars", new Task() {
+                void run() throws Exception {
+                    sink += parse(true).hashCode();
+                }
+            });
+            if (piped < single && crossover == 0)
+                crossover = size;
+            else if (piped >= single)
+                crossover = 0;
+        }
+        myGen.bytes = saved;
+        mySource = null;
+        if (crossover == 0)
+            System.out.println("crossover: the pipeline never paid");
+        else
+            System.out.println("crossover: the pipeline pays from " +
+                               crossover + " bytes");
+    }
+
+    // 100000 literals of each kind, one per line
+    private void benchIntLiterals() throws Exception {
+        String[] kinds = { "short", "long", "overflow" };
+        String[] literals = { "7", "1234567890", "98765432109876" };
+        for (int k = 0; k < kinds.length; k++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 100000; i++) {
+                sb.append(literals[k]).append('\n');
+            }
+            final String text = sb.toString();
+            measure(kinds[k], text.length(), "chars", new Task() {
+                void run() throws Exception {
+                    Yylex scanner = new Yylex(new StringReader(text),
+                                              new Diagnostics());
+                    while (scanner.next_token().sym != sym.EOF) {
+                        sink++;
+                    }
+                }
+            });
+            measure(kinds[k] + " fast", text.length(), "chars", new Task() {
+                void run() throws Exception {
+                    FastScanner scanner =
+                        new FastScanner(new StringReader(text),
+                                        new Diagnostics());
+                    while (scanner.next_token().sym != sym.EOF) {
+                        sink++;
+                    }
+                }
+            });
+        }
+    }
+
+    // the bytes Yylex and FastScanner allocate per token of the program
+    private void benchScanAlloc() throws Exception {
+        for (int fast = 0; fast < 2; fast++) {
+            long tokens = 0;
+            long allocStart = 0;
+            for (int i = 0; i < myWarmup + myIterations; i++) {
+                if (i == myWarmup)
+                    allocStart = CompileStats.allocatedBytes();
+                Reader in = new StringReader(source());
+                java_cup.runtime.Scanner scanner = fast == 1 ?
+                    new FastScanner(in, new Diagnostics()) :
+                    new Yylex(in, new Diagnostics());
+                while (scanner.next_token().sym != sym.EOF) {
+                    if (i >= myWarmup)
+                        tokens++;
+                }
+            }
+            long alloc = CompileStats.allocatedBytes() - allocStart;
+            System.out.printf("%-10s %12d tokens  %8.1f bytes/token%n",
+                              fast == 1 ? "FastScanner" : "Yylex",
+                              tokens / myIterations, alloc / (double)tokens);
+        }
+    }
+
+    // 1000 functions of 1000 statements each
+    private void benchAst() throws Exception {
+        MooGen gen = new MooGen();
+        gen.seed = myGen.seed;
+        gen.functions = 1000;
+        gen.stmts = 1000;
+        gen.depth = 0;
+        String saved = mySource;
+        mySource = gen.generate();
+        long before = usedHeap();
+        final ProgramNode program = parse(false);
+        long heap = usedHeap() - before;
+        System.out.printf("ast        %12d bytes  %6.1f bytes/stmt%n", heap,
+                          heap / 1e6);
+        measure("ast names", mySource.length(), "chars", new Task() {
+            void run() {
+                analyze(program);
+            }
+        });
+        measure("ast unparse", mySource.length(), "chars", new Task() {
+            void run() {
+                unparse(program);
+            }
+        });
+        mySource = saved;
+    }
+
+    // name analysis and unparse of programs too deep for the recursive
+    // methods on a default-sized stack
+    private void benchDeep() throws Exception {
+        StringBuilder sb = new StringBuilder("int a;\nvoid main() {\na = a");
+        for (int i = 1; i < 1000000; i++) {
+            sb.append(" + a");
+        }
+        sb.append(";\n}\n");
+        deep("chain", sb.toString());
+
+        sb = new StringBuilder("int a;\nvoid main() {\n");
+        for (int i = 0; i < 10000; i++) {
+            sb.append("while (a) {\nint b;\n");
+        }
+        sb.append("b = a;\n");
+        for (int i = 0; i < 10000; i++) {
+            sb.append("}\n");
+        }
+        sb.append("}\n");
+        deep("nesting", sb.toString());
+    }
+
+    // times NameAnalyzer and Unparser and then the recursive nameAnalysis
+    // and unparse on text
+    private void deep(final String name, String text) throws Exception {
+        String saved = mySource;
+        mySource = text;
+        final ProgramNode program = parse(false);
+        mySource = saved;
+        final int length = text.length();
+        measure(name + " names", length, "chars", new Task() {
+            void run() {
+                analyze(program);
+            }
+        });
+        measure(name + " unparse", length, "chars", new Task() {
+            void run() {
+                unparse(program);
+            }
+        });
+        final Exception[] failure = new Exception[1];
+        Thread thread = new Thread(null, new Runnable() {
+            public void run() {
+                try {
+                    overflowing(name + " names-rec", length, new Task() {
+                        void run() {
+                            program.nameAnalysis(new Diagnostics());
+                        }
+                    });
+                    overflowing(name + " unparse-rec", length, new Task() {
+                        void run() {
+                            PrintWriter p =
+                                new PrintWriter(new CountingWriter());
+                            program.unparse(p, 0);
+                            p.flush();
+                        }
+                    });
+                } catch (Exception ex) {
+                    failure[0] = ex;
+                }
+            }
+        }, "bench " + name, myStack);
+        thread.start();
+        thread.join();
+        if (failure[0] != null)
+            throw failure[0];
+    }
+
+    // measures task, reporting it if it runs out of stack
+    private void overflowing(String name, long work, Task task)
+        throws Exception {
+        try {
+            measure(name, work, "chars", task);
+        } catch (StackOverflowError err) {
+            System.out.printf("%-10s stack overflow%n", name);
+        }
+    }
+
+    // unparses a big program to a temporary file, the way the compiler
+    // does with each kind of output
+    private void benchOutput() throws Exception {
+        MooGen gen = new MooGen();
+        gen.seed = myGen.seed;
+        gen.bytes = myGen.bytes != 0 ? myGen.bytes : 100000000;
+        String saved = mySource;
+        mySource = gen.generate();
+        final ProgramNode program = parse(false);
+        mySource = saved;
+        analyze(program);
+        final File file = File.createTempFile("bench", ".out");
+        file.deleteOnExit();
+        String[] kinds = { "stream", "direct" };
+        for (String kind : kinds) {
+            final CompileOptions options = new CompileOptions();
+            options.parse("--output=" + kind);
+            Task task = new Task() {
+                void run() throws Exception {
+                    PrintWriter p = options.openOutput(file.getPath());
+                    new Unparser(p).unparse(program, 0);
+                    p.close();
+                }
+            };
+            task.run();
+            double mean = measure("output " + kind, file.length(), "bytes",
+                                  task);
+            System.out.printf("output %s: %d bytes, %.1f MB/s%n", kind,
+                              file.length(), file.length() / (mean / 1e3));
+        }
+    }
+
+    // parses, analyzes and unparses a big program whole, then one
+    // declaration at a time; reports what is still held once it is done
+    private void benchStream() throws Exception {
+        MooGen gen = new MooGen();
+        gen.seed = myGen.seed;
+        gen.bytes = myGen.bytes != 0 ? myGen.bytes : 20000000;
+        String saved = mySource;
+        mySource = gen.generate();
+        boolean[] streams = { false, true };
+        for (final boolean stream : streams) {
+            String name = stream ? "stream" : "whole";
+            long before = usedHeap();
+            Object[] held = compile(stream);
+            long heap = usedHeap() - before;
+            sink += held.length;
+            System.out.printf("%-10s %12d bytes held%n", name, heap);
+            held = null;
+            measure(name, mySource.length(), "chars", new Task() {
+                void run() throws Exception {
+                    sink += compile(stream).length;
+                }
+            });
+        }
+        mySource = saved;
+    }
+
+    // compiles the program as the compiler does, with or without --stream,
+    // to a Writer that throws the output away; returns the program and the
+    // symbol table
+    private Object[] compile(boolean stream) throws Exception {
+        Diagnostics diags = new Diagnostics();
+        SymTable table = new SymTable();
+        PrintWriter out = new PrintWriter(new CountingWriter());
+        parser P = new parser(new CompileOptions().newScanner(
+                                  new StringReader(source()), diags),
+                              diags);
+        if (stream)
+            P.streamer = new DeclStreamer(table, diags, out, null);
+        ProgramNode program = (ProgramNode)P.parse().value;
+        if (!stream) {
+            new NameAnalyzer(table, diags).analyze(program);
+            new Unparser(out).unparse(program, 0);
+        }
+        out.flush();
+        return new Object[] { program, table };
+    }
+
+    // one function with n parameters, then one with n statements, for n
+    // from 1000 to 100000; the parser's stack should not grow with n
+    private void benchStress() throws Exception {
+        for (int n = 1000; n <= 100000; n *= 10) {
+            stress("formals " + n, stressProgram(n, 1));
+            stress("stmts " + n, stressProgram(2, n));
+        }
+    }
+
+    private String stressProgram(int formals, int stmts) {
+        MooGen gen = new MooGen();
+        gen.seed = myGen.seed;
+        gen.functions = 1;
+        gen.depth = 0;
+        gen.formals = formals;
+        gen.stmts = stmts;
+        return gen.generate();
+    }
+
+    // parses text once, reporting the deepest the parser's stack got and
+    // what the parse allocated
+    private void stress(String name, String text) throws Exception {
+        Diagnostics diags = new Diagnostics();
+        DepthParser P =
+            new DepthParser(new Yylex(new StringReader(text), diags), diags);
+        long alloc = CompileStats.allocatedBytes();
+        P.parse();
+        alloc = CompileStats.allocatedBytes() - alloc;
+        System.out.printf("%-14s %10d chars  stack %6d  %12d bytes  " +
+                          "%6.1f bytes/char%n", name, text.length(),
+                          P.maxDepth, alloc, alloc / (double)text.length());
+    }
+
+    // 1000 nested scopes, each declaring one name, with every global
+    // looked up from the innermost scope
+    private void benchSymTable() throws Exception {
+        final int depth = 1000;
+        final SemSym sym = new SemSym("int");
+        measure("symtable", depth * depth, "lookups", new Task() {
+            void run() throws Exception {
+                SymTable table = new SymTable();
+                for (int i = 0; i < depth; i++) {
+                    table.addDecl(i, sym);
+                    table.addScope();
+                }
+                for (int i = 0; i < depth; i++) {
+                    for (int j = 0; j < depth; j++) {
+                        if (table.lookupGlobal(j) != null)
+                            sink++;
+                    }
+                }
+                for (int i = 0; i < depth; i++) {
+                    table.removeScope();
+                }
+            }
+        });
+    }
+
+    // 1000000 scope cycles, or lookups, per iteration, in a table with a
+    // global scope of 10000 names; the per-cycle and per-lookup figures
+    // are printed after each benchmark
+    private void benchScopes() throws Exception {
+        final int size = 10000;
+        final int n = 1000000;
+        final SemSym sym = new SemSym("int");
+        final SymTable table = new SymTable();
+        for (int i = 0; i < size; i++) {
+            table.addDecl(i, sym);
+        }
+        table.addScope();  // a function's
+        scopes("scope empty", n, new Task() {
+            void run() throws Exception {
+                for (int i = 0; i < n; i++) {
+                    table.addScope();
+                    table.removeScope();
+                }
+            }
+        });
+        scopes("scope 3", n, new Task() {
+            void run() throws Exception {
+                for (int i = 0; i < n; i++) {
+                    table.addScope();
+                    table.addDecl(size, sym);
+                    table.addDecl(size + 1, sym);
+                    table.addDecl(size + 2, sym);
+                    table.removeScope();
+                }
+            }
+        });
+        table.addScope();
+        table.addDecl(size, sym);
+        table.addDecl(size + 1, sym);
+        table.addDecl(size + 2, sym);
+        scopes("lookup 3", n, new Task() {
+            void run() {
+                for (int i = 0; i < n; i++) {
+                    if (table.lookupGlobal(size + i % 3) != null)
+                        sink++;
+                }
+            }
+        });
+        scopes("lookup 10k", n, new Task() {
+            void run() {
+                for (int i = 0; i < n; i++) {
+                    if (table.lookupGlobal(i * 7919 % size) != null)
+                        sink++;
+                }
+            }
+        });
+    }
+
+    private void scopes(String name, int n, Task task) throws Exception {
+        long allocStart = CompileStats.allocatedBytes();
+        double mean = measure(name, n, "ops", task);
+        long alloc = CompileStats.allocatedBytes() - allocStart;
+        System.out.printf("%s: %.1f ns, %.1f bytes per op%n", name,
+                          mean / n, alloc / ((myWarmup + myIterations)
+                                             * (double)n));
+    }
+
+    // 1000000 lookups per thread in a global scope of 10000 names, half of
+    // them misses: in a FrozenScope, which threads share as it is, and in
+    // a SymTable, which they have to lock
+    private void benchFrozen() throws Exception {
+        final int size = 10000;
+        final SymTable table = new SymTable();
+        for (int i = 0; i < size; i++) {
+            table.addDecl(2 * i, new SemSym("int"));
+        }
+        final FrozenScope frozen = table.freezeGlobals();
+        final int[] names = new int[1 << 14];
+        Random random = new Random(myGen.seed);
+        for (int i = 0; i < names.length; i++) {
+            names[i] = random.nextInt(2 * size);
+        }
+        final int rounds = 1000000 / names.length;
+        int[] threadCounts = { 1, 8, 32 };
+        for (int threads : threadCounts) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                long work = (long)threads * rounds * names.length;
+                measure("frozen " + threads, work, "lookups",
+                        inParallel(pool, threads, new Callable<Long>() {
+                    public Long call() {
+                        long found = 0;
+                        for (int r = 0; r < rounds; r++) {
+                            for (int name : names) {
+                                if (frozen.lookup(name) != null)
+                                    found++;
+                            }
+                        }
+                        return found;
+                    }
+                }));
+                measure("locked " + threads, work, "lookups",
+                        inParallel(pool, threads, new Callable<Long>() {
+                    public Long call() {
+                        long found = 0;
+                        for (int r = 0; r < rounds; r++) {
+                            for (int name : names) {
+                                synchronized (table) {
+                                    if (table.lookupGlobal(name) != null)
+                                        found++;
+                                }
+                            }
+                        }
+                        return found;
+                    }
+                }));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // a task that runs work on each of threads threads of pool at once
+    private static Task inParallel(final ExecutorService pool,
+                                   final int threads,
+                                   final Callable<Long> work) {
+        return new Task() {
+            void run() throws Exception {
+                List<Callable<Long>> calls = Collections.nCopies(threads, work);
+                for (Future<Long> f : pool.invokeAll(calls)) {
+                    sink += f.get();
+                }
+            }
+        };
+    }
+
+    private String source() {
+        if (mySource == null)
+            mySource = myGen.generate();
+        return mySource;
+    }
+
+    // the program, written to a temporary file
+    private String sourceFile() throws IOException {
+        if (mySourceFile == null) {
+            File file = File.createTempFile("bench", ".moo");
+            file.deleteOnExit();
+            Writer w = new OutputStreamWriter(new FileOutputStream(file),
+                                              "UTF-8");
+            try {
+                w.write(source());
+            } finally {
+                w.close();
+            }
+            mySourceFile = file.getPath();
+        }
+        return mySourceFile;
+    }
+
+    private Yylex scanner() {
+        return new Yylex(new StringReader(source()), new Diagnostics());
+    }
+
+    // name analysis as the compiler does it
+    private static void analyze(ProgramNode program) {
+        new NameAnalyzer(new SymTable(), new Diagnostics()).analyze(program);
+    }
+
+    // unparse as the compiler does it, to a Writer that throws it away
+    private static void unparse(ProgramNode program) {
+        PrintWriter p = new PrintWriter(new CountingWriter());
+        new Unparser(p).unparse(program, 0);
+        p.flush();
+    }
+
+    private ProgramNode parse(boolean pipelined) throws Exception {
+        Diagnostics diags = new Diagnostics();
+        CompileOptions options = new CompileOptions();
+        options.pipeline = pipelined;
+        parser P = new parser(options.newScanner(new StringReader(source()),
+                                                 diags),
+                              diags);
+        return (ProgramNode)P.parse().value;
+    }
+
+    // runs task and prints its timings; work is the amount of input (in
+    // units) one iteration handles, for the throughput figure.  Returns the
+    // mean time of an iteration, in nanoseconds
+    private double measure(String name, long work, String units, Task task)
+        throws Exception {
+        for (int i = 0; i < myWarmup; i++) {
+            task.run();
+        }
+        long total = 0;
+        long best = Long.MAX_VALUE;
+        long allocStart = CompileStats.allocatedBytes();
+        long gcStart = gcCount();
+        long gcTimeStart = gcMillis();
+        for (int i = 0; i < myIterations; i++) {
+            long start = System.nanoTime();
+            task.run();
+            long time = System.nanoTime() - start;
+            total += time;
+            best = Math.min(best, time);
+        }
+        long alloc =
+            (CompileStats.allocatedBytes() - allocStart) / myIterations;
+        long gcs = gcCount() - gcStart;
+        long gcTime = gcMillis() - gcTimeStart;
+        double mean = total / (double)myIterations;
+        System.out.printf("%-10s mean %10.3f ms  best %10.3f ms  " +
+                          "%12.0f %s/s  %12d bytes/op  %4d gcs %6d ms%n",
+                          name, mean / 1e6, best / 1e6,
+                          work / (mean / 1e9), units, alloc, gcs, gcTime);
+        return mean;
+    }
+
+    // the heap in use after a full collection
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage()
+                   .getUsed();
+    }
+
+    // collections so far, over all collectors
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc :
+                 ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    // milliseconds spent collecting so far, over all collectors
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc :
+                 ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(gc.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+
+    private MooGen myGen = new MooGen();
+    private String mySource;
+    private String mySourceFile;
+    private int myWarmup = 5;
+    private int myIterations = 10;
+    private long myStack;  // for the recursive name analysis; 0 = default
+
+    // results are folded into this so the JIT can't drop the work
+    static long sink;
+
+    // a parser that records the deepest its stack gets
+    private static class DepthParser extends parser {
+        DepthParser(java_cup.runtime.Scanner s, Diagnostics diags) {
+            super(s, diags);
+        }
+
+        public Symbol scan() throws Exception {
+            maxDepth = Math.max(maxDepth, stack.size());
+            return super.scan();
+        }
+
+        int maxDepth;
+    }
+
+    private abstract static class Task {
+        abstract void run() throws Exception;
+    }
+
+    // a Writer that throws its output away, counting the characters
+    private static class CountingWriter extends Writer {
+        public void write(char[] buf, int off, int len) {
+            count += len;
+        }
+
+        public void write(String s, int off, int len) {
+            count += len;
+        }
+
+        public void flush() {
+        }
+
+        public void close() {
+        }
+
+        long count;
+    }
+}
@@ -0,0 +1,138 @@
+import java.io.*;
+import java_cup.runtime.*;
+
+/**
+ * CompileOptions
+ *
+ * The options that change how a file is compiled.  P4, BatchCompiler and
+ * CompileServer all parse their options with this class, so every way of
+ * running the compiler accepts the same ones:
+ *    --stats         collect a CompileStats report for each file and print
+ *                    it to standard output
+ *    --stats=<file>  write the report to file instead
+ *    --input=mmap    read source files through a memory mapping (see
+ *                    MappedSourceReader); "-" then names standard input
+ *    --input=stream  read them with a FileReader (the default)
+ *    --scanner=fast  scan with FastScanner
+ *    --scanner=jlex  scan with Yylex, generated by JLex (the default)
+ *    --pipeline      scan on a thread of its own, ahead of the parser (see
+ *                    PipelinedScanner)
+ *    --output=direct write the unparsed program through a DirectBufferWriter
+ *    --output=stream write it through the JDK's buffered PrintWriter (the
+ *                    default)
+ *    --stream        analyze and unparse each top-level declaration as
+ *                    soon as it is parsed (see DeclStreamer)
+ *    --parallel      analyze the function bodies in parallel, on the common
+ *                    ForkJoinPool (see ParallelNameAnalyzer); ignored with
+ *                    --stream
+ */
+class CompileOptions {
+    public boolean stats;
+    public String statsFile;  // null means standard output
+    public boolean mmapInput;
+    public boolean fastScanner;
+    public boolean pipeline;
+    public boolean directOutput;
+    public boolean stream;
+    public boolean parallel;
+
+    /**
+     * Applies the option arg; returns false if it is not an option.
+     */
+    public boolean parse(String arg) {
+        if (arg.equals("--stats")) {
+            stats = true;
+            statsFile = null;
+        } else if (arg.startsWith("--stats=")) {
+            stats = true;
+            statsFile = arg.substring("--stats=".length());
+        } else if (arg.equals("--input=mmap")) {
+            mmapInput = true;
+        } else if (arg.equals("--input=stream")) {
+            mmapInput = false;
+        } else if (arg.equals("--scanner=fast")) {
+            fastScanner = true;
+        } else if (arg.equals("--scanner=jlex")) {
+            fastScanner = false;
+        } else if (arg.equals("--pipeline")) {
+            pipeline = true;
+        } else if (arg.equals("--output=direct")) {
+            directOutput = true;
+        } else if (arg.equals("--output=stream")) {
+            directOutput = false;
+        } else if (arg.equals("--stream")) {
+            stream = true;
+        } else if (arg.equals("--parallel")) {
+            parallel = true;
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Opens the source file inName the way the --input option says.
+     */
+    public Reader openInput(String inName) throws IOException {
+        if (mmapInput)
+            return MappedSourceReader.open(inName);
+        return new FileReader(inName);
+    }
+
+    /**
+     * Opens the file outName for the unparsed program, the way the --output
+     * option says.
+     */
+    public PrintWriter openOutput(String outName)
+        throws FileNotFoundException {
+        if (directOutput)
+            return DirectBufferWriter.open(outName);
+        return new PrintWriter(outName);
+    }
+
+    /**
+     * Returns the scanner the --scanner and --pipeline options say,
+     * reading from in.  A PipelinedScanner must be closed when the parser
+     * is done with it.
+     */
+    public Scanner newScanner(Reader in, Diagnostics diags) {
+        if (!pipeline)
+            return newBaseScanner(in, diags);
+        Diagnostics scanDiags = new Diagnostics();
+        return new PipelinedScanner(newBaseScanner(in, scanDiags), scanDiags,
+                                    diags);
+    }
+
+    private Scanner newBaseScanner(Reader in, Diagnostics diags) {
+        if (fastScanner)
+            return new FastScanner(in, diags);
+        return new Yylex(in, diags);
+    }
+
+    /**
+     * Returns a CompileStats to fill in for the file inName, or null if
+     * stats were not asked for.
+     */
+    public CompileStats newStats(String inName) {
+        return stats ? new CompileStats(inName) : null;
+    }
+
+    /**
+     * Writes a stats report (one or more CompileStats in JSON) to the
+     * stats file, or to out if there is none.
+     */
+    public void writeStats(String json, PrintStream out) throws IOException {
+        if (statsFile == null) {
+            out.println(json);
+            return;
+        }
+        Writer w = new OutputStreamWriter(new FileOutputStream(statsFile),
+                                          "UTF-8");
+        try {
+            w.write(json);
+            w.write(System.lineSeparator());
+        } finally {
+            w.close();
+        }
+    }
+}
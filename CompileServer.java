@@ -0,0 +1,245 @@
+import java.io.*;
+import java.net.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * CompileServer
+ *
+ * Keeps one JVM (and its JIT-compiled scanner and parser) alive and
+ * compiles files on request, so that a build does not pay JVM startup for
+ * every file.  The server listens on a loopback port only; p4client.sh is
+ * the matching client.
+ *
+ * Any local process can connect to a loopback port, so every request must
+ * start with a token the server makes up when it starts and writes to
+ * ~/.p4server.<port>, a file only its owner can read (see tokenFile).
+ * Requests without it are refused, so only processes that can read the
+ * file can have the server write files or shut it down.
+ *
+ * Each connection carries one request, a single tab-separated line:
+ *    <token> compile <source path> <output path> [option ...]
+ *    <token> shutdown
+ * The options are those of P4 (see CompileOptions).  Paths, including any
+ * in options, are used as given, so clients should send absolute paths.  The
+ * reply is the compilation's messages, each line prefixed with "O " (for
+ * standard output) or "E " (for standard error), followed by "S <status>",
+ * where status is the exit status P4 would have given.
+ *
+ * A pool thread waits at most REQUEST_TIMEOUT milliseconds for the
+ * request, and a request longer than MAX_REQUEST bytes is refused, so a
+ * client that connects and sends nothing, or never ends its line, can
+ * neither hold a thread for long nor fill the heap.
+ */
+class CompileServer {
+    public static final int DEFAULT_PORT = 5360;
+    private static final int REQUEST_TIMEOUT = 2000;
+    private static final int MAX_REQUEST = 8192;
+
+    public CompileServer(int port) throws IOException {
+        myServer = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        myPool = Executors.newFixedThreadPool(
+                     Runtime.getRuntime().availableProcessors());
+        byte[] secret = new byte[16];
+        new SecureRandom().nextBytes(secret);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : secret) {
+            sb.append(String.format("%02x", b & 0xff));
+        }
+        myToken = sb.toString();
+        myTokenFile = tokenFile(port);
+        writeToken(myTokenFile, myToken);
+    }
+
+    /**
+     * Returns the file the server on port keeps its token in.
+     */
+    public static File tokenFile(int port) {
+        return new File(System.getProperty("user.home"), ".p4server." + port);
+    }
+
+    // writes token to file, which is made readable by its owner only
+    // before anything is written to it
+    private static void writeToken(File file, String token)
+        throws IOException {
+        Path path = file.toPath();
+        Files.deleteIfExists(path);
+        try {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(
+                                 PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException ex) {
+            Files.createFile(path);
+            file.setReadable(false, false);
+            file.setWritable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(true, true);
+        }
+        file.deleteOnExit();
+        Writer w = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            w.write(token);
+            w.write('\n');
+        } finally {
+            w.close();
+        }
+    }
+
+    /**
+     * Serves requests until a shutdown request arrives.
+     */
+    public void serve() throws IOException {
+        try {
+            while (true) {
+                final Socket client;
+                try {
+                    client = myServer.accept();
+                } catch (SocketException ex) {
+                    break;  // the server socket was closed by shutdown
+                }
+                myPool.execute(new Runnable() {
+                    public void run() {
+                        handle(client);
+                    }
+                });
+            }
+        } finally {
+            myPool.shutdown();
+            myTokenFile.delete();
+        }
+    }
+
+    private void handle(Socket client) {
+        try {
+            client.setSoTimeout(REQUEST_TIMEOUT);
+            PrintStream reply = new PrintStream(new BufferedOutputStream(
+                                    client.getOutputStream()), false, "UTF-8");
+            String request = readRequest(new BufferedInputStream(
+                                             client.getInputStream()));
+            if (request == null) {
+                reply.println("E request longer than " + MAX_REQUEST +
+                              " bytes");
+                reply.println("S " + Compiler.FAILED);
+                reply.flush();
+                return;
+            }
+            String[] words = request.split("\t");
+            if (words.length == 0 || !tokenMatches(words[0])) {
+                reply.println("E bad token: see " + myTokenFile);
+                reply.println("S " + Compiler.FAILED);
+                reply.flush();
+                return;
+            }
+            words = Arrays.copyOfRange(words, 1, words.length);
+            if (words.length == 1 && words[0].equals("shutdown")) {
+                reply.println("S 0");
+                reply.flush();
+                myServer.close();
+            } else if (words.length >= 3 && words[0].equals("compile")) {
+                compile(words, reply);
+            } else {
+                reply.println("E bad request: " + join(words));
+                reply.println("S " + Compiler.FAILED);
+            }
+            reply.flush();
+        } catch (IOException ex) {
+            // the client went away, or sent nothing in time; there is no
+            // one left to tell
+        } finally {
+            try {
+                client.close();
+            } catch (IOException ex) {
+                // already closed
+            }
+        }
+    }
+
+    // reads the request line, without its line terminator; returns null
+    // if it is longer than MAX_REQUEST bytes
+    private static String readRequest(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (line.size() == MAX_REQUEST)
+                return null;
+            line.write(b);
+        }
+        String request = line.toString("UTF-8");
+        if (request.endsWith("\r"))
+            request = request.substring(0, request.length() - 1);
+        return request;
+    }
+
+    // compares in constant time, so the token can't be found a character
+    // at a time by timing replies
+    private boolean tokenMatches(String word) throws IOException {
+        return MessageDigest.isEqual(word.getBytes("UTF-8"),
+                                     myToken.getBytes("UTF-8"));
+    }
+
+    private static String join(String[] words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0)
+                sb.append('\t');
+            sb.append(words[i]);
+        }
+        return sb.toString();
+    }
+
+    private void compile(String[] words, PrintStream reply) {
+        ByteArrayOutputStream outBuf = new ByteArrayOutputStream();
+        ByteArrayOutputStream errBuf = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(outBuf, true);
+        PrintStream err = new PrintStream(errBuf, true);
+        CompileOptions options = new CompileOptions();
+        String badOption = null;
+        for (int i = 3; i < words.length && badOption == null; i++) {
+            if (!options.parse(words[i]))
+                badOption = words[i];
+        }
+        int status;
+        if (badOption != null) {
+            err.println("unknown option: " + badOption);
+            status = Compiler.FAILED;
+        } else {
+            CompileStats stats = options.newStats(words[1]);
+            try {
+                status = Compiler.compile(words[1], words[2], options,
+                                          new Diagnostics(), stats, out, err);
+            } catch (Throwable ex) {
+                err.println("Internal compiler error: " + ex);
+                status = Compiler.FAILED;
+                if (stats != null)
+                    stats.setStatus(status);
+            }
+            if (stats != null) {
+                try {
+                    options.writeStats(stats.toJson(), out);
+                } catch (IOException ex) {
+                    err.println("could not write stats: " + ex.getMessage());
+                }
+            }
+        }
+        sendLines("O ", outBuf.toString(), reply);
+        sendLines("E ", errBuf.toString(), reply);
+        reply.println("S " + status);
+    }
+
+    private static void sendLines(String prefix, String text,
+                                  PrintStream reply) {
+        if (text.length() == 0)
+            return;
+        for (String line : text.split("\r?\n")) {
+            reply.print(prefix);
+            reply.println(line);
+        }
+    }
+
+    private ServerSocket myServer;
+    private ExecutorService myPool;
+    private String myToken;
+    private File myTokenFile;
+}
@@ -0,0 +1,184 @@
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+import java_cup.runtime.Scanner;
+import java_cup.runtime.Symbol;
+
+/**
+ * CompileStats
+ *
+ * Measurements of one compilation, reported as JSON by the --stats option:
+ * the wall time, CPU time and bytes allocated by each phase, the number of
+ * tokens, the number of AST nodes of each class, and how deep and how full
+ * the symbol table got.
+ *
+ * Normally the parser pulls tokens from the scanner as it goes, so the two
+ * can't be timed apart.  With stats on, Compiler instead scans the whole
+ * file first (the "scan" phase) and then parses the saved tokens (the
+ * "parse" phase).
+ */
+class CompileStats {
+    public CompileStats(String file) {
+        myFile = file;
+    }
+
+    /**
+     * Starts timing the phase called name; the phase ends at the next call
+     * to begin or end.
+     */
+    public void begin(String name) {
+        end();
+        myPhase = new Phase(name);
+        myPhase.wall = System.nanoTime();
+        myPhase.cpu = cpuTime();
+        myPhase.alloc = allocatedBytes();
+    }
+
+    public void end() {
+        if (myPhase == null)
+            return;
+        myPhase.wall = System.nanoTime() - myPhase.wall;
+        myPhase.cpu = cpuTime() - myPhase.cpu;
+        myPhase.alloc = allocatedBytes() - myPhase.alloc;
+        myPhases.add(myPhase);
+        myPhase = null;
+    }
+
+    /**
+     * Reads every token from scanner, counting them, and returns a scanner
+     * that hands the same tokens out again, then a new EOF token each time
+     * it is called after that (the parser rejects a token it has seen).
+     */
+    public Scanner scanAll(Scanner scanner) throws Exception {
+        final ArrayList<Symbol> tokens = new ArrayList<Symbol>();
+        Symbol token;
+        do {
+            token = scanner.next_token();
+            tokens.add(token);
+        } while (token.sym != sym.EOF);
+        myTokens = tokens.size() - 1;  // EOF is not a token of the program
+        return new Scanner() {
+            public Symbol next_token() {
+                if (next < tokens.size())
+                    return tokens.get(next++);
+                Symbol eof = tokens.get(tokens.size() - 1);
+                return new Symbol(sym.EOF, eof.left, eof.right);
+            }
+
+            private int next;
+        };
+    }
+
+    /**
+     * Counts the nodes of the tree below root by class.
+     */
+    public void countNodes(ASTnode root) {
+        ASTWalker.walk(root, new ASTVisitor() {
+            public boolean enterNode(ASTnode node) {
+                String name = node.getClass().getName();
+                Integer count = myNodes.get(name);
+                myNodes.put(name, count == null ? 1 : count + 1);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Records the peak depth and size of table, once name analysis is done
+     * with it.
+     */
+    public void symTable(SymTable table) {
+        myPeakDepth = table.getPeakDepth();
+        myPeakEntries = table.getPeakEntries();
+    }
+
+    public void setStatus(int status) {
+        myStatus = status;
+    }
+
+    /**
+     * Returns the report as a JSON object.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"file\": ");
+        quote(myFile, sb);
+        sb.append(", \"status\": ").append(myStatus);
+        sb.append(", \"tokens\": ").append(myTokens);
+        sb.append(", \"phases\": {");
+        for (int i = 0; i < myPhases.size(); i++) {
+            Phase phase = myPhases.get(i);
+            sb.append(i == 0 ? "" : ", ");
+            quote(phase.name, sb);
+            sb.append(": {\"wallNanos\": ").append(phase.wall);
+            sb.append(", \"cpuNanos\": ").append(phase.cpu);
+            sb.append(", \"allocatedBytes\": ").append(phase.alloc);
+            sb.append("}");
+        }
+        sb.append("}, \"nodes\": {");
+        String sep = "";
+        for (Map.Entry<String, Integer> e : myNodes.entrySet()) {
+            sb.append(sep);
+            quote(e.getKey(), sb);
+            sb.append(": ").append(e.getValue());
+            sep = ", ";
+        }
+        sb.append("}, \"symTable\": {\"peakDepth\": ").append(myPeakDepth);
+        sb.append(", \"peakEntries\": ").append(myPeakEntries);
+        sb.append("}}");
+        return sb.toString();
+    }
+
+    // bytes allocated so far by this thread, or 0 if the JVM can't tell
+    static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean)bean)
+                       .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    // CPU time used so far by this thread, or 0 if the JVM can't tell
+    static long cpuTime() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean.isCurrentThreadCpuTimeSupported()
+               ? bean.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static void quote(String s, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < ' ')
+                sb.append(String.format("\\u%04x", (int)c));
+            else
+                sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private String myFile;
+    private int myStatus;
+    private int myTokens;
+    private ArrayList<Phase> myPhases = new ArrayList<Phase>();
+    private Phase myPhase;  // the phase being timed, if any
+    private TreeMap<String, Integer> myNodes = new TreeMap<String, Integer>();
+    private int myPeakDepth;
+    private int myPeakEntries;
+
+    // one phase's name and measurements; while the phase runs, wall, cpu
+    // and alloc hold the readings at its start
+    private static class Phase {
+        Phase(String name) {
+            this.name = name;
+        }
+
+        final String name;
+        long wall;
+        long cpu;
+        long alloc;
+    }
+}
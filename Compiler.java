@@ -0,0 +1,172 @@
+import java.io.*;
+import java.util.concurrent.*;
+import java_cup.runtime.*;
+
+/**
+ * Compiler
+ *
+ * Runs the whole pipeline for one source file: scanning, parsing, name
+ * analysis and, if there were no errors, unparsing.  Unlike the old P4.main
+ * it never exits the JVM; errors are reported to the compilation's
+ * Diagnostics and summarized by the returned status, so any number of
+ * files can be compiled in one process.
+ */
+class Compiler {
+    // compile() results, which P4 also uses as its exit status
+    public static final int SUCCESS = 0;
+    public static final int ERRORS = 1;   // scanning, syntax or name errors
+    public static final int FAILED = -1;  // bad file or unparsable program
+
+    /**
+     * Compiles the file inName and unparses it into outName, which is left
+     * empty if the program does not compile.  Status messages are printed
+     * to out; error messages, including the contents of diags, are printed
+     * to err.  If stats is not null, it is filled in with measurements of
+     * the compilation.
+     */
+    public static int compile(String inName, String outName,
+                              CompileOptions options,
+                              Diagnostics diags, CompileStats stats,
+                              PrintStream out, PrintStream err) {
+        // open input file
+        Reader inFile = null;
+        try {
+            inFile = options.openInput(inName);
+        } catch (FileNotFoundException ex) {
+            err.println("File " + inName + " not found.");
+            return failed(stats);
+        } catch (IOException ex) {
+            err.println("File " + inName + " could not be read: " +
+                        ex.getMessage());
+            return failed(stats);
+        }
+
+        // open output file
+        PrintWriter outFile = null;
+        try {
+            outFile = options.openOutput(outName);
+        } catch (FileNotFoundException ex) {
+            err.println("File " + outName +
+                        " could not be opened for writing.");
+            close(inFile);
+            return failed(stats);
+        }
+
+        int status = FAILED;
+        try {
+            status = compile(inFile, outFile, options, diags, stats, out, err);
+            return status;
+        } finally {
+            close(inFile);
+            outFile.close();
+            // --stream may have written the declarations before the first
+            // error; leave the file empty, as it is without streaming
+            if (status != SUCCESS)
+                truncate(outName, err);
+        }
+    }
+
+    /**
+     * Compiles the program read from in and unparses it to outFile.
+     */
+    public static int compile(Reader in, PrintWriter outFile,
+                              CompileOptions options,
+                              Diagnostics diags, CompileStats stats,
+                              PrintStream out, PrintStream err) {
+        int status = run(in, outFile, options, diags, stats, out, err);
+        if (stats != null) {
+            stats.end();
+            stats.setStatus(status);
+        }
+        return status;
+    }
+
+    private static int run(Reader in, PrintWriter outFile,
+                           CompileOptions options,
+                           Diagnostics diags, CompileStats stats,
+                           PrintStream out, PrintStream err) {
+        Scanner source = options.newScanner(in, diags);
+        Scanner scanner = source;
+
+        Symbol root = null; // the parser will return a Symbol whose value
+                            // field is the translation of the root nonterminal
+                            // (i.e., of the nonterminal "program")
+        SymTable symTab = new SymTable();
+
+        try {
+            if (stats != null) {
+                stats.begin("scan");
+                scanner = stats.scanAll(scanner);
+                stats.begin(options.stream ? "stream" : "parse");
+            }
+            parser P = new parser(scanner, diags);
+            if (options.stream)
+                P.streamer = new DeclStreamer(symTab, diags, outFile, stats);
+            root = P.parse(); // do the parse
+            if (diags.errorCount(Diagnostics.SYNTAX) == 0)
+                out.println("program parsed correctly.");
+        } catch (SyntaxErrorException ex) {
+            diags.flush(err);  // the syntax errors are already in diags
+            return FAILED;
+        } catch (Exception ex) {
+            diags.flush(err);
+            err.println("Exception occured during parse: " + ex);
+            return FAILED;
+        } finally {
+            if (source instanceof PipelinedScanner)
+                ((PipelinedScanner)source).close();
+        }
+        ProgramNode program = (ProgramNode)root.value;
+        if (stats != null) {
+            stats.end();
+            stats.countNodes(program);
+        }
+        // when streaming, the declarations were analyzed and unparsed as
+        // they were parsed, and program is empty
+        if (!options.stream) {
+            if (stats != null)
+                stats.begin("names");
+            if (options.parallel)
+                new ParallelNameAnalyzer(symTab, diags,
+                                         ForkJoinPool.commonPool())
+                    .analyze(program);
+            else
+                new NameAnalyzer(symTab, diags).analyze(program);
+        }
+        diags.flush(err);
+        if (stats != null)
+            stats.symTable(symTab);
+        if (diags.hasErrors())
+            return ERRORS;
+        if (!options.stream) {
+            if (stats != null)
+                stats.begin("unparse");
+            new Unparser(outFile).unparse(program, 0);
+        }
+        outFile.flush();
+        return SUCCESS;
+    }
+
+    private static int failed(CompileStats stats) {
+        if (stats != null)
+            stats.setStatus(FAILED);
+        return FAILED;
+    }
+
+    private static void truncate(String name, PrintStream err) {
+        try {
+            new FileOutputStream(name).close();
+        } catch (IOException ex) {
+            err.println("File " + name + " could not be emptied: " +
+                        ex.getMessage());
+        }
+    }
+
+    private static void close(Reader r) {
+        try {
+            r.close();
+        } catch (IOException ex) {
+            // nothing useful to do; the file was only being read
+        }
+    }
+}
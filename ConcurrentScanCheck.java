@@ -0,0 +1,168 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java_cup.runtime.Symbol;
+
+/**
+ * ConcurrentScanCheck
+ *
+ * Checks that Yylex instances on different threads keep their positions
+ * apart.  Every input is scanned once on its own, and every token's
+ * position is checked against the text: the line and character number of
+ * an ID, an integer literal or a string literal (in its TokenVal and in
+ * its Symbol) must be where its text is, and the tokens of a file must
+ * start at non-blank characters, in order.  Then all the inputs are
+ * scanned many times over on a pool of threads at once, and each scan
+ * must give the same tokens, at the same positions, as the first.
+ *
+ * Each file given is checked; with no files, programs generated by
+ * MooGen, some with seeded errors, are checked instead.
+ *
+ * usage: java ConcurrentScanCheck [file ...]
+ * The exit status is 0 if every input passed, 1 otherwise.
+ */
+public class ConcurrentScanCheck {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;  // scans of each input on the pool
+
+    public static void main(String[] args) throws Exception {
+        final List<String> names = new ArrayList<String>();
+        final List<String> texts = new ArrayList<String>();
+        if (args.length > 0) {
+            for (String file : args) {
+                names.add(file);
+                texts.add(readFile(file));
+            }
+        } else {
+            MooGen gen = new MooGen();
+            gen.functions = 20;
+            for (int seed = 0; seed < 32; seed++) {
+                gen.seed = seed;
+                gen.errors = seed % 2 == 0 ? 0 : 20;
+                names.add("MooGen seed " + seed);
+                texts.add(gen.generate());
+            }
+        }
+
+        int failed = 0;
+        final List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < texts.size(); i++) {
+            String error = checkPositions(texts.get(i));
+            if (error != null) {
+                System.out.println(names.get(i) + ": " + error);
+                failed++;
+            }
+            expected.add(scan(texts.get(i)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        try {
+            for (int r = 0; r < ROUNDS; r++) {
+                for (int i = 0; i < texts.size(); i++) {
+                    final int input = i;
+                    results.add(pool.submit(new Callable<Boolean>() {
+                        public Boolean call() throws Exception {
+                            return scan(texts.get(input))
+                                .equals(expected.get(input));
+                        }
+                    }));
+                }
+            }
+            int differed = 0;
+            for (int k = 0; k < results.size(); k++) {
+                if (!results.get(k).get()) {
+                    String name = names.get(k % texts.size());
+                    System.out.println(name + ": a concurrent scan differed");
+                    differed++;
+                }
+            }
+            failed += differed;
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println(texts.size() + " inputs checked, " +
+                           results.size() + " concurrent scans, " + failed +
+                           " failures");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    // the tokens of text, one per line, with their positions and values
+    private static String scan(String text) throws Exception {
+        Yylex scanner = new Yylex(new StringReader(text), new Diagnostics());
+        StringBuilder sb = new StringBuilder();
+        Symbol token;
+        do {
+            token = scanner.next_token();
+            sb.append(token.sym).append(' ').append(token.left).append(':')
+              .append(token.right);
+            if (token.value instanceof TokenVal) {
+                TokenVal val = (TokenVal)token.value;
+                sb.append(' ').append(val.linenum).append(':')
+                  .append(val.charnum);
+            }
+            sb.append('\n');
+        } while (token.sym != sym.EOF);
+        return sb.toString();
+    }
+
+    // returns what is wrong with the positions Yylex gives the tokens of
+    // text, or null if nothing is
+    private static String checkPositions(String text) throws Exception {
+        String[] lines = text.split("\n", -1);
+        Yylex scanner = new Yylex(new StringReader(text), new Diagnostics());
+        int lastLine = 0;
+        int lastChar = 0;
+        for (int n = 1; ; n++) {
+            Symbol token = scanner.next_token();
+            if (token.sym == sym.EOF)
+                return null;
+            String where = "token " + n + " at " + token.left + ":" +
+                           token.right;
+            if (token.left < lastLine ||
+                (token.left == lastLine && token.right <= lastChar))
+                return where + " is not after the token before it";
+            lastLine = token.left;
+            lastChar = token.right;
+            if (token.left < 1 || token.left > lines.length)
+                return where + " is on no line";
+            String line = lines[token.left - 1];
+            if (token.right < 1 || token.right > line.length())
+                return where + " is past the end of its line";
+            String rest = line.substring(token.right - 1);
+            if (Character.isWhitespace(rest.charAt(0)))
+                return where + " starts at a blank";
+            if (!(token.value instanceof TokenVal))
+                continue;
+            TokenVal val = (TokenVal)token.value;
+            if (val.linenum != token.left || val.charnum != token.right)
+                return where + " has a TokenVal at " + val.linenum + ":" +
+                       val.charnum;
+            String spelling = null;
+            if (val instanceof IdTokenVal)
+                spelling = ((IdTokenVal)val).idVal;
+            else if (val instanceof StrLitTokenVal)
+                spelling = ((StrLitTokenVal)val).strVal;
+            else if (val instanceof IntLitTokenVal &&
+                     !Character.isDigit(rest.charAt(0)))
+                return where + " is an integer literal at " + rest;
+            if (spelling != null && !rest.startsWith(spelling))
+                return where + " is " + spelling + " but the text is " + rest;
+        }
+    }
+
+    private static String readFile(String file) throws IOException {
+        Reader in = new FileReader(file);
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buf = new char[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                sb.append(buf, 0, n);
+            }
+            return sb.toString();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+import java.io.*;
+
+/**
+ * DeclStreamer
+ *
+ * Compiles a program one top-level declaration at a time (--stream).  The
+ * parser hands each declaration over as soon as it has parsed it; since
+ * moo names must be declared before they are used, the declaration can be
+ * name-analyzed against the global scope right away, and unparsed, and
+ * then dropped.  Only the global scope (and the struct definitions in it)
+ * is kept for the whole program, rather than the whole AST.
+ *
+ * Once any error has been reported, nothing more is written, and
+ * Compiler.compile empties the output file when it is done, so a program
+ * with errors leaves no output, as without streaming.  Errors come out in
+ * the order of the declarations they are in, rather than all syntax
+ * errors first.
+ */
+class DeclStreamer {
+    /**
+     * Creates a streamer that analyzes declarations in table, reporting to
+     * diags, and unparses them to out.  If stats is not null, the nodes of
+     * each declaration are counted in it.
+     */
+    public DeclStreamer(SymTable table, Diagnostics diags, PrintWriter out,
+                        CompileStats stats) {
+        myDiags = diags;
+        myAnalyzer = new NameAnalyzer(table, diags);
+        myUnparser = new Unparser(out);
+        myStats = stats;
+    }
+
+    /**
+     * Analyzes and unparses decl, the next top-level declaration.
+     */
+    public void decl(DeclNode decl) {
+        if (myStats != null)
+            myStats.countNodes(decl);
+        myAnalyzer.analyze(decl);
+        if (!myDiags.hasErrors())
+            myUnparser.unparse(decl, 0);
+    }
+
+    private Diagnostics myDiags;
+    private NameAnalyzer myAnalyzer;
+    private Unparser myUnparser;
+    private CompileStats myStats;
+}
@@ -0,0 +1,138 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Diagnostics
+ *
+ * Collects the errors and warnings of one compilation.  The scanner, the
+ * parser and name analysis report into the Diagnostics they are given
+ * instead of printing as they go, and the driver writes everything out
+ * with a single call to flush.  Nothing here is static, so several
+ * compilations can run in one JVM without seeing each other's errors.
+ */
+class Diagnostics {
+    // severities
+    public static final int ERROR = 0;
+    public static final int WARNING = 1;
+
+    // codes, saying which part of the compiler reported a diagnostic
+    public static final String LEXICAL = "lexical";
+    public static final String SYNTAX = "syntax";
+    public static final String NAME = "name";
+    public static final String INTERNAL = "internal";
+
+    /**
+     * Records a fatal error.
+     * @param lineNum line number for error location
+     * @param charNum character number (i.e., column) for error location
+     * @param code which part of the compiler found the error
+     * @param msg associated message for error
+     */
+    public void fatal(int lineNum, int charNum, String code, String msg) {
+        add(new Diagnostic(lineNum, charNum, ERROR, code, msg));
+    }
+
+    /**
+     * Records a warning.
+     * @param lineNum line number for warning location
+     * @param charNum character number (i.e., column) for warning location
+     * @param code which part of the compiler issued the warning
+     * @param msg associated message for warning
+     */
+    public void warn(int lineNum, int charNum, String code, String msg) {
+        add(new Diagnostic(lineNum, charNum, WARNING, code, msg));
+    }
+
+    /** Returns the number of diagnostics recorded with the given severity. */
+    public int count(int severity) {
+        return counts[severity];
+    }
+
+    public int errorCount() {
+        return counts[ERROR];
+    }
+
+    public int warningCount() {
+        return counts[WARNING];
+    }
+
+    /** Returns the number of errors recorded with the given code. */
+    public int errorCount(String code) {
+        int n = 0;
+        for (Diagnostic d : diags) {
+            if (d.severity == ERROR && d.code.equals(code))
+                n++;
+        }
+        return n;
+    }
+
+    public boolean hasErrors() {
+        return counts[ERROR] > 0;
+    }
+
+    /** Returns everything recorded so far, in the order it was reported. */
+    public List<Diagnostic> getDiagnostics() {
+        return Collections.unmodifiableList(diags);
+    }
+
+    /**
+     * Writes out every diagnostic recorded since the last flush, in the
+     * order they were reported, with a single write to out.
+     */
+    public void flush(PrintStream out) {
+        if (flushed == diags.size())
+            return;
+        StringBuilder sb = new StringBuilder();
+        for (int i = flushed; i < diags.size(); i++) {
+            diags.get(i).appendTo(sb);
+            sb.append(System.lineSeparator());
+        }
+        flushed = diags.size();
+        out.print(sb);
+        out.flush();
+    }
+
+    /**
+     * Records d, which was first reported to another Diagnostics.
+     */
+    public void add(Diagnostic d) {
+        diags.add(d);
+        counts[d.severity]++;
+    }
+
+    private ArrayList<Diagnostic> diags = new ArrayList<Diagnostic>();
+    private int[] counts = new int[2];
+    private int flushed;  // number of diags already written by flush
+
+    /**
+     * One error or warning, with its location in the source.
+     */
+    public static class Diagnostic {
+        Diagnostic(int lineNum, int charNum, int severity, String code,
+                   String msg) {
+            this.lineNum = lineNum;
+            this.charNum = charNum;
+            this.severity = severity;
+            this.code = code;
+            this.msg = msg;
+        }
+
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            appendTo(sb);
+            return sb.toString();
+        }
+
+        void appendTo(StringBuilder sb) {
+            sb.append(lineNum).append(':').append(charNum);
+            sb.append(severity == ERROR ? " ***ERROR*** " : " ***WARNING*** ");
+            sb.append(msg);
+        }
+
+        public final int lineNum;
+        public final int charNum;
+        public final int severity;
+        public final String code;
+        public final String msg;
+    }
+}
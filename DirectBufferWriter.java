@@ -0,0 +1,203 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/**
+ * DirectBufferWriter
+ *
+ * Writes characters to a file as UTF-8 through one large direct buffer,
+ * which is handed to the file's channel when it fills up (--output=direct).
+ * Unparsed moo is nearly all ASCII, so each char below 0x80 is stored as a
+ * byte straight into the buffer, with no char buffer or CharsetEncoder in
+ * between; anything else is encoded by hand.  An unpaired surrogate is
+ * written as '?', as an OutputStreamWriter does.
+ *
+ * Direct buffers are slow to allocate and are freed only by the garbage
+ * collector, so each thread keeps one for the writers it opens: a writer
+ * takes its thread's buffer, and close clears it and hands it back.
+ *
+ * open wraps it in a PrintWriter that passes its calls straight on,
+ * without taking the lock a PrintWriter takes on every call (which costs
+ * as much as the rest of unparsing); like the unparser it is written by,
+ * that PrintWriter is for one thread only.
+ */
+class DirectBufferWriter extends Writer {
+    private static final int SIZE = 1 << 20;
+    // a closed writer's buffer: any write finds it full, and drain fails
+    private static final ByteBuffer CLOSED = ByteBuffer.allocate(0);
+
+    /**
+     * Opens the file name for writing, creating or truncating it.
+     */
+    public static PrintWriter open(String name)
+        throws FileNotFoundException {
+        FileOutputStream out = new FileOutputStream(name);
+        return new Printer(new DirectBufferWriter(out.getChannel()));
+    }
+
+    public DirectBufferWriter(WritableByteChannel channel) {
+        myChannel = channel;
+        myBuf = SPARE.get();
+        if (myBuf == null)  // a new thread, or its buffer is in use
+            myBuf = ByteBuffer.allocateDirect(SIZE);
+        else
+            SPARE.remove();
+    }
+
+    public void write(int c) throws IOException {
+        if (myBuf.remaining() < 4)
+            drain();
+        if (c < 0x80 && myHigh == 0)
+            myBuf.put((byte)c);
+        else
+            encode((char)c);
+    }
+
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end) {
+            if (myBuf.remaining() < 4)
+                drain();
+            // as many ASCII chars as fit, then one char of any kind
+            int n = Math.min(end - off, myBuf.remaining() - 3);
+            int stop = off + n;
+            if (myHigh == 0) {
+                while (off < stop && cbuf[off] < 0x80) {
+                    myBuf.put((byte)cbuf[off++]);
+                }
+            }
+            if (off < stop)
+                encode(cbuf[off++]);
+        }
+    }
+
+    public void write(String s, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end) {
+            if (myBuf.remaining() < 4)
+                drain();
+            int n = Math.min(end - off, myBuf.remaining() - 3);
+            int stop = off + n;
+            if (myHigh == 0) {
+                while (off < stop && s.charAt(off) < 0x80) {
+                    myBuf.put((byte)s.charAt(off++));
+                }
+            }
+            if (off < stop)
+                encode(s.charAt(off++));
+        }
+    }
+
+    public void flush() throws IOException {
+        drain();
+    }
+
+    public void close() throws IOException {
+        if (myChannel == null)
+            return;
+        try {
+            if (myHigh != 0) {
+                myHigh = 0;
+                myBuf.put((byte)'?');
+            }
+            drain();
+        } finally {
+            myBuf.clear();
+            SPARE.set(myBuf);
+            myBuf = CLOSED;
+            myChannel.close();
+            myChannel = null;
+        }
+    }
+
+    // stores c, which needs up to 4 bytes of room, as UTF-8
+    private void encode(char c) {
+        if (myHigh != 0) {
+            char high = myHigh;
+            myHigh = 0;
+            if (Character.isLowSurrogate(c)) {
+                int cp = Character.toCodePoint(high, c);
+                myBuf.put((byte)(0xf0 | (cp >> 18)));
+                myBuf.put((byte)(0x80 | ((cp >> 12) & 0x3f)));
+                myBuf.put((byte)(0x80 | ((cp >> 6) & 0x3f)));
+                myBuf.put((byte)(0x80 | (cp & 0x3f)));
+                return;
+            }
+            myBuf.put((byte)'?');  // the high surrogate had no partner
+        }
+        if (c < 0x80) {
+            myBuf.put((byte)c);
+        } else if (c < 0x800) {
+            myBuf.put((byte)(0xc0 | (c >> 6)));
+            myBuf.put((byte)(0x80 | (c & 0x3f)));
+        } else if (Character.isHighSurrogate(c)) {
+            myHigh = c;  // wait for the low half
+        } else if (Character.isLowSurrogate(c)) {
+            myBuf.put((byte)'?');
+        } else {
+            myBuf.put((byte)(0xe0 | (c >> 12)));
+            myBuf.put((byte)(0x80 | ((c >> 6) & 0x3f)));
+            myBuf.put((byte)(0x80 | (c & 0x3f)));
+        }
+    }
+
+    // writes out everything in the buffer
+    private void drain() throws IOException {
+        if (myChannel == null)
+            throw new IOException("Stream closed");
+        myBuf.flip();
+        while (myBuf.hasRemaining()) {
+            myChannel.write(myBuf);
+        }
+        myBuf.clear();
+    }
+
+    // the PrintWriter open returns; every print call comes down to one of
+    // these writes, and errors are reported through checkError
+    private static class Printer extends PrintWriter {
+        Printer(DirectBufferWriter out) {
+            super(out);
+            myOut = out;
+        }
+
+        public void write(int c) {
+            try {
+                myOut.write(c);
+            } catch (IOException ex) {
+                setError();
+            }
+        }
+
+        public void write(char[] buf, int off, int len) {
+            try {
+                myOut.write(buf, off, len);
+            } catch (IOException ex) {
+                setError();
+            }
+        }
+
+        public void write(String s, int off, int len) {
+            try {
+                myOut.write(s, off, len);
+            } catch (IOException ex) {
+                setError();
+            }
+        }
+
+        public void println() {
+            write(LINE_END, 0, LINE_END.length());
+        }
+
+        private static final String LINE_END = System.lineSeparator();
+
+        private DirectBufferWriter myOut;
+    }
+
+    // each thread's buffer, while no writer is using it
+    private static final ThreadLocal<ByteBuffer> SPARE =
+        new ThreadLocal<ByteBuffer>();
+
+    private WritableByteChannel myChannel;
+    private ByteBuffer myBuf;
+    private char myHigh;  // a high surrogate waiting for its low half
+}
@@ -0,0 +1,396 @@
+import java.io.*;
+import java_cup.runtime.*;
+
+/**
+ * FastScanner
+ *
+ * A hand-written scanner for moo, selected with --scanner=fast.  It
+ * returns exactly the tokens, positions and diagnostics that Yylex (the
+ * scanner JLex generates from moo.jlex) does, but dispatches on the
+ * current character with a switch instead of running a DFA, recognizes
+ * keywords with a perfect hash instead of the DFA's extra states, and
+ * creates no String for any token but identifiers (interned in the
+ * NamePool, as in Yylex) and string literals.  As in Yylex, tokens with
+ * fixed text are a bare Symbol, with their position in left and right.
+ * ScannerCheck compares the two.
+ *
+ * The quirks of Yylex kept on purpose:
+ *    - a carriage return starts a new line (a CR LF pair counts once), but
+ *      is also reported as an illegal character;
+ *    - the string rules of moo.jlex are matched longest-first, like JLex,
+ *      which decides where an unterminated or badly escaped string ends;
+ *    - unterminated strings do not advance the character number.
+ * Yylex only handles 7-bit input; this scanner treats other characters
+ * as illegal instead of failing.
+ *
+ * Like Yylex, a FastScanner must stay confined to one thread.
+ */
+class FastScanner implements Scanner {
+    public FastScanner(Reader in, Diagnostics diags) {
+        myIn = in;
+        myDiags = diags;
+    }
+
+    NamePool getNames() {
+        return myNames;
+    }
+
+    Diagnostics getDiagnostics() {
+        return myDiags;
+    }
+
+    public Symbol next_token() throws IOException {
+        while (true) {
+            myStart = myPos;
+            int c = la(0);
+            switch (c) {
+            case -1:
+                return new Symbol(sym.EOF);
+            case '\n':
+                consume(1);
+                myCharNum = 1;
+                break;
+            case ' ':
+            case '\t':
+                int len = 1;
+                for (c = la(len); c == ' ' || c == '\t'; c = la(++len)) {
+                }
+                skip(len);
+                myCharNum += len;
+                break;
+            case '/':
+                if (la(1) == '/') {
+                    skipComment();
+                    break;
+                }
+                return token(sym.DIVIDE, 1);
+            case '#':
+                skipComment();
+                break;
+            case '"':
+                Symbol str = string();
+                if (str != null)
+                    return str;
+                break;
+            case '{':
+                return token(sym.LCURLY, 1);
+            case '}':
+                return token(sym.RCURLY, 1);
+            case '(':
+                return token(sym.LPAREN, 1);
+            case ')':
+                return token(sym.RPAREN, 1);
+            case ';':
+                return token(sym.SEMICOLON, 1);
+            case ',':
+                return token(sym.COMMA, 1);
+            case '.':
+                return token(sym.DOT, 1);
+            case '*':
+                return token(sym.TIMES, 1);
+            case '<':
+                c = la(1);
+                if (c == '<')
+                    return token(sym.WRITE, 2);
+                if (c == '=')
+                    return token(sym.LESSEQ, 2);
+                return token(sym.LESS, 1);
+            case '>':
+                c = la(1);
+                if (c == '>')
+                    return token(sym.READ, 2);
+                if (c == '=')
+                    return token(sym.GREATEREQ, 2);
+                return token(sym.GREATER, 1);
+            case '+':
+                if (la(1) == '+')
+                    return token(sym.PLUSPLUS, 2);
+                return token(sym.PLUS, 1);
+            case '-':
+                if (la(1) == '-')
+                    return token(sym.MINUSMINUS, 2);
+                return token(sym.MINUS, 1);
+            case '!':
+                if (la(1) == '=')
+                    return token(sym.NOTEQUALS, 2);
+                return token(sym.NOT, 1);
+            case '=':
+                if (la(1) == '=')
+                    return token(sym.EQUALS, 2);
+                return token(sym.ASSIGN, 1);
+            case '&':
+                if (la(1) == '&')
+                    return token(sym.AND, 2);
+                illegal(c);
+                break;
+            case '|':
+                if (la(1) == '|')
+                    return token(sym.OR, 2);
+                illegal(c);
+                break;
+            default:
+                if (isLetter(c) || c == '_')
+                    return word();
+                if (isDigit(c))
+                    return intLiteral();
+                illegal(c);
+                break;
+            }
+        }
+    }
+
+    // a fixed token of len characters
+    private Symbol token(int kind, int len) {
+        Symbol s = new Symbol(kind, myLine + 1, myCharNum);
+        skip(len);
+        myCharNum += len;
+        return s;
+    }
+
+    // an identifier or keyword
+    private Symbol word() throws IOException {
+        int len = 1;
+        for (int c = la(len); isLetter(c) || isDigit(c) || c == '_';
+             c = la(++len)) {
+        }
+        int kind = keyword(len);
+        Symbol s;
+        if (kind != sym.ID) {
+            s = new Symbol(kind, myLine + 1, myCharNum);
+        } else {
+            int id = myNames.intern(myBuf, myStart, len);
+            s = new Symbol(sym.ID, myLine + 1, myCharNum,
+                           new IdTokenVal(myLine + 1, myCharNum, id,
+                                          myNames.name(id)));
+        }
+        skip(len);
+        myCharNum += len;
+        return s;
+    }
+
+    // returns the keyword spelled by the len characters at myStart, or ID
+    private int keyword(int len) {
+        char first = myBuf[myStart];
+        char last = myBuf[myStart + len - 1];
+        int h = (first + last + len) & (KEYWORDS.length - 1);
+        char[] kw = KEYWORDS[h];
+        if (kw == null || kw.length != len)
+            return sym.ID;
+        for (int i = 0; i < len; i++) {
+            if (myBuf[myStart + i] != kw[i])
+                return sym.ID;
+        }
+        return KEYWORD_SYMS[h];
+    }
+
+    private Symbol intLiteral() throws IOException {
+        int len = 0;
+        for (int c = la(0); isDigit(c); c = la(++len)) {
+        }
+        int val = IntLitTokenVal.value(myBuf, myStart, len);
+        if (val < 0) {
+            myDiags.warn(myLine + 1, myCharNum, Diagnostics.LEXICAL,
+                         "integer literal too large; using max value");
+            val = Integer.MAX_VALUE;
+        }
+        Symbol s = new Symbol(sym.INTLITERAL, myLine + 1, myCharNum,
+                       new IntLitTokenVal(myLine + 1, myCharNum, val));
+        skip(len);
+        myCharNum += len;
+        return s;
+    }
+
+    // a comment, up to but not including the end of its line
+    private void skipComment() throws IOException {
+        int len = 1;
+        for (int c = la(len); c != '\n' && c != -1; c = la(++len)) {
+        }
+        consume(len);
+    }
+
+    // One of the four string rules of moo.jlex, whichever matches the most
+    // input (the first, on a tie); returns null if it was an error.  Using
+    // G for a plain character or a good escape, the rules are:
+    //    1. " G* "                  a string literal
+    //    2. " G*                    unterminated
+    //    3. " G* \bad [^\n"]* "     bad escape
+    //    4. " G* (\bad)? G* \?      unterminated with bad escape
+    // The G* run that starts each rule can only end one way, at end.
+    private Symbol string() throws IOException {
+        int end = goodRun(1);
+        int c = la(end);
+        if (c == '"') {
+            int len = end + 1;
+            Symbol s = new Symbol(sym.STRINGLITERAL, myLine + 1, myCharNum,
+                           new StrLitTokenVal(myLine + 1, myCharNum,
+                                              new String(myBuf, myStart, len)));
+            consume(len);
+            myCharNum += len;
+            return s;
+        }
+
+        if (c == '\\' && isBadEscape(la(end + 1))) {
+            int rule3 = 0;
+            int q = end + 2;
+            for (c = la(q); c != '"' && c != '\n' && c != -1; c = la(++q)) {
+            }
+            if (c == '"')
+                rule3 = q + 1;
+            int rule4 = goodRun(end + 2);
+            if (la(rule4) == '\\')
+                rule4++;
+            if (rule3 >= rule4) {
+                myDiags.fatal(myLine + 1, myCharNum, Diagnostics.LEXICAL,
+                    "string literal with bad escaped character ignored");
+                consume(rule3);
+                myCharNum += rule3;
+            } else {
+                myDiags.fatal(myLine + 1, myCharNum, Diagnostics.LEXICAL,
+                    "unterminated string literal with bad escaped character " +
+                    "ignored");
+                consume(rule4);
+            }
+        } else if (c == '\\') {
+            // a backslash at the end of the line or file: rule 4 matches it
+            myDiags.fatal(myLine + 1, myCharNum, Diagnostics.LEXICAL,
+                "unterminated string literal with bad escaped character " +
+                "ignored");
+            consume(end + 1);
+        } else {
+            myDiags.fatal(myLine + 1, myCharNum, Diagnostics.LEXICAL,
+                          "unterminated string literal ignored");
+            consume(end);
+        }
+        return null;
+    }
+
+    // returns the offset at which a run of plain string characters and good
+    // escapes, starting at offset from, ends
+    private int goodRun(int from) throws IOException {
+        int k = from;
+        while (true) {
+            int c = la(k);
+            if (c == '\\' && isGoodEscape(la(k + 1)))
+                k += 2;
+            else if (c != '"' && c != '\\' && c != '\n' && c != -1)
+                k++;
+            else
+                return k;
+        }
+    }
+
+    private static boolean isGoodEscape(int c) {
+        return c == 'n' || c == 't' || c == '\'' || c == '"' || c == '?' ||
+               c == '\\';
+    }
+
+    private static boolean isBadEscape(int c) {
+        return c != '\n' && c != -1 && !isGoodEscape(c);
+    }
+
+    private void illegal(int c) {
+        myDiags.fatal(myLine + 1, myCharNum, Diagnostics.LEXICAL,
+                      "illegal character ignored: " + (char)c);
+        consume(1);
+        myCharNum++;
+    }
+
+    // moves past the len characters at myStart, counting the lines they end
+    // the way JLex does
+    private void consume(int len) {
+        int end = myStart + len;
+        for (int i = myStart; i < end; i++) {
+            char c = myBuf[i];
+            if (c == '\n' && !myLastWasCR)
+                myLine++;
+            if (c == '\r') {
+                myLine++;
+                myLastWasCR = true;
+            } else {
+                myLastWasCR = false;
+            }
+        }
+        myPos = end;
+    }
+
+    // moves past the len characters at myStart, which end no lines
+    private void skip(int len) {
+        myPos = myStart + len;
+        myLastWasCR = false;
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // returns the character at offset k from the start of the current
+    // token, or -1 at end of file
+    private int la(int k) throws IOException {
+        int i = myStart + k;
+        if (i < myEnd)
+            return myBuf[i];
+        return fill(k);
+    }
+
+    // reads more input so that offset k of the current token is in myBuf;
+    // the current token is moved to the front of myBuf first
+    private int fill(int k) throws IOException {
+        while (myStart + k >= myEnd) {
+            if (myEof)
+                return -1;
+            if (myStart > 0) {
+                System.arraycopy(myBuf, myStart, myBuf, 0, myEnd - myStart);
+                myEnd -= myStart;
+                myPos -= myStart;
+                myStart = 0;
+            } else if (myEnd == myBuf.length) {
+                char[] bigger = new char[myBuf.length * 2];
+                System.arraycopy(myBuf, 0, bigger, 0, myEnd);
+                myBuf = bigger;
+            }
+            int n = myIn.read(myBuf, myEnd, myBuf.length - myEnd);
+            if (n < 0)
+                myEof = true;
+            else
+                myEnd += n;
+        }
+        return myBuf[myStart + k];
+    }
+
+    // keywords by (first char + last char + length) mod 32, a perfect hash
+    private static final char[][] KEYWORDS = new char[32][];
+    private static final int[] KEYWORD_SYMS = new int[32];
+    static {
+        String[] words = { "bool", "int", "void", "true", "false", "struct",
+                           "cin", "cout", "if", "else", "while", "return" };
+        int[] syms = { sym.BOOL, sym.INT, sym.VOID, sym.TRUE, sym.FALSE,
+                       sym.STRUCT, sym.CIN, sym.COUT, sym.IF, sym.ELSE,
+                       sym.WHILE, sym.RETURN };
+        for (int i = 0; i < words.length; i++) {
+            String w = words[i];
+            int h = (w.charAt(0) + w.charAt(w.length() - 1) + w.length()) & 31;
+            if (KEYWORDS[h] != null)
+                throw new AssertionError("keyword hash collision: " + w);
+            KEYWORDS[h] = w.toCharArray();
+            KEYWORD_SYMS[h] = syms[i];
+        }
+    }
+
+    private Reader myIn;
+    private Diagnostics myDiags;
+    private NamePool myNames = new NamePool();
+
+    private char[] myBuf = new char[8192];
+    private int myStart;    // where the current token starts in myBuf
+    private int myPos;      // where the next token starts in myBuf
+    private int myEnd;      // end of the input read into myBuf
+    private boolean myEof;
+
+    private int myLine;     // lines before myPos, counted as JLex does
+    private boolean myLastWasCR;
+    private int myCharNum = 1;
+}
@@ -0,0 +1,77 @@
+/**
+ * FrozenScope
+ *
+ * An immutable copy of the global scope of a SymTable, made with
+ * SymTable.freezeGlobals, for many threads to read at once without any
+ * locking.  It is one open-addressing table, built once: every slot holds
+ * a name id and the number of the declaration in declaration order, side
+ * by side in one int array, with the symbol at the same slot of another.
+ * All fields are final, so a FrozenScope can be handed to other threads
+ * any way at all.
+ *
+ * Tables made with new SymTable(FrozenScope, int) put scopes of their own
+ * on top of one, seeing only the declarations it had at some point.
+ */
+public class FrozenScope {
+    /**
+     * Creates a scope holding the declarations of names[i] as syms[i], for
+     * i from 0 to n - 1, in declaration order.  The names must be
+     * distinct.
+     */
+    FrozenScope(int[] names, SemSym[] syms, int n) {
+        int capacity = 4;
+        while (capacity < 2 * n) {
+            capacity *= 2;
+        }
+        int[] slots = new int[2 * capacity];
+        SemSym[] slotSyms = new SemSym[capacity];
+        for (int s = 0; s < capacity; s++) {
+            slots[2 * s] = -1;
+        }
+        int mask = capacity - 1;
+        for (int i = 0; i < n; i++) {
+            int s = names[i] & mask;
+            while (slots[2 * s] != -1) {
+                s = (s + 1) & mask;
+            }
+            slots[2 * s] = names[i];
+            slots[2 * s + 1] = i;
+            slotSyms[s] = syms[i];
+        }
+        mySlots = slots;
+        mySyms = slotSyms;
+        myMask = mask;
+        mySize = n;
+    }
+
+    /** Returns the number of declarations. */
+    public int size() {
+        return mySize;
+    }
+
+    /** Returns the symbol declared for name, or null. */
+    public SemSym lookup(int name) {
+        return lookup(name, mySize);
+    }
+
+    /**
+     * Returns the symbol declared for name if it is among the first n
+     * declarations, or null.
+     */
+    public SemSym lookup(int name, int n) {
+        int[] slots = mySlots;
+        for (int s = name & myMask; slots[2 * s] != -1;
+             s = (s + 1) & myMask) {
+            if (slots[2 * s] == name)
+                return slots[2 * s + 1] < n ? mySyms[s] : null;
+        }
+        return null;
+    }
+
+    // slot s holds a name at 2s (-1 = empty) and its declaration's number
+    // at 2s + 1; mySyms[s] is its symbol
+    private final int[] mySlots;
+    private final SemSym[] mySyms;
+    private final int myMask;
+    private final int mySize;
+}
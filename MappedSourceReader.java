@@ -0,0 +1,128 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+
+/**
+ * MappedSourceReader
+ *
+ * Reads a UTF-8 source file through a memory mapping of it instead of
+ * read() calls on a stream.  Bytes are copied out of the mapping in bulk
+ * into a heap buffer, because the JDK's UTF-8 decoder only takes its
+ * vectorized path for runs of ASCII (nearly all of any moo program) on
+ * heap buffers; that beats widening the bytes by hand.  Malformed input is
+ * replaced, as FileReader does.
+ *
+ * Files larger than the window size are mapped one window at a time.
+ */
+class MappedSourceReader extends Reader {
+    private static final long WINDOW = 1L << 30;
+
+    /**
+     * Opens the file name for reading.  Regular files are memory-mapped;
+     * "-" (standard input), pipes and devices can't be, and are read as
+     * streams instead.
+     */
+    public static Reader open(String name) throws IOException {
+        if (name.equals("-"))
+            return new BufferedReader(new InputStreamReader(System.in,
+                                                            "UTF-8"));
+        File file = new File(name);
+        FileInputStream in = new FileInputStream(file);
+        if (!file.isFile())
+            return new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            return new MappedSourceReader(in.getChannel(), WINDOW);
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    MappedSourceReader(FileChannel channel, long windowSize)
+        throws IOException {
+        myChannel = channel;
+        mySize = channel.size();
+        myWindowSize = windowSize;
+        myDecoder = Charset.forName("UTF-8").newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        map(0);
+        myAllCopied = mySize == 0;
+    }
+
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (myWindow == null)
+            throw new IOException("Stream closed");
+        if (len == 0)
+            return 0;
+        int n = 0;
+        if (myPending != 0) {
+            cbuf[off + n++] = myPending;
+            myPending = 0;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off + n, len - n);
+        while (out.hasRemaining()) {
+            CoderResult result = myDecoder.decode(myBytes, out, myAllCopied);
+            if (result.isOverflow()) {
+                if (out.position() == off) {
+                    // a surrogate pair with room for only one half
+                    CharBuffer pair = CharBuffer.allocate(2);
+                    myDecoder.decode(myBytes, pair, myAllCopied);
+                    out.put(pair.get(0));
+                    myPending = pair.get(1);
+                }
+                break;
+            }
+            // myBytes is used up, but for any cut-off sequence at its end
+            if (myAllCopied)
+                break;
+            fill();
+        }
+        n = out.position() - off;
+        return n == 0 ? -1 : n;
+    }
+
+    public boolean ready() {
+        return myWindow != null &&
+               (myPending != 0 || myBytes.hasRemaining() || !myAllCopied);
+    }
+
+    public void close() throws IOException {
+        myWindow = null;  // unmapped when it is garbage collected
+        myChannel.close();
+    }
+
+    // moves the next bytes of the file from the mapping into myBytes, after
+    // whatever is left in it
+    private void fill() throws IOException {
+        myBytes.compact();
+        if (!myWindow.hasRemaining())
+            map(myWindowStart + myWindow.limit());
+        int count = Math.min(myBytes.remaining(), myWindow.remaining());
+        myWindow.get(myBytes.array(), myBytes.position(), count);
+        myBytes.position(myBytes.position() + count);
+        myBytes.flip();
+        myAllCopied = myWindowStart + myWindow.position() == mySize;
+    }
+
+    // maps the window of the file that starts at byte start
+    private void map(long start) throws IOException {
+        long size = Math.min(myWindowSize, mySize - start);
+        myWindow = myChannel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        myWindowStart = start;
+    }
+
+    private FileChannel myChannel;
+    private long mySize;
+    private long myWindowSize;
+    private MappedByteBuffer myWindow;
+    private long myWindowStart;  // offset in the file of myWindow's byte 0
+    private CharsetDecoder myDecoder;
+    private char myPending;      // second half of a split surrogate pair, or 0
+
+    // bytes copied out of the mapping but not decoded yet (the cast is for
+    // Java 8, where flip returns a Buffer)
+    private ByteBuffer myBytes = (ByteBuffer)ByteBuffer.allocate(8192).flip();
+    private boolean myAllCopied;  // whether the last byte is in myBytes
+}
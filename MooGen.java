@@ -0,0 +1,329 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * MooGen
+ *
+ * Generates synthetic moo programs for benchmarks and scaling tests.  The
+ * programs use every construct of the grammar in moo.cup, and the same
+ * settings and seed always produce the same program.  Unless errors are
+ * asked for, the programs are free of name-analysis errors, so every phase
+ * (including unparse) runs on them.
+ *
+ * The shape of the program is controlled by:
+ *    functions  number of functions
+ *    bytes      if not 0, functions are added until the program is at
+ *               least this many bytes long (functions is then ignored)
+ *    stmts      statements in each block
+ *    depth      nesting depth of if/else/while blocks in each function
+ *    structs    number of struct types, each nesting the one before it,
+ *               so dot-access chains are up to structs+1 names long
+ *    ids        number of distinct global variable names
+ *    formals    parameters of each function
+ *    errors     name errors to seed per 1000 statements
+ *    seed       seed for the random choices
+ *
+ * usage: java MooGen [--setting value ...] [output file]
+ * The program is written to standard output if no file is given.
+ */
+class MooGen {
+    public int functions = 100;
+    public long bytes = 0;
+    public int stmts = 10;
+    public int depth = 3;
+    public int structs = 4;
+    public int ids = 50;
+    public int formals = 2;
+    public int errors = 0;
+    public long seed = 536;
+
+    public static void main(String[] args) throws IOException {
+        MooGen gen = new MooGen();
+        String outName = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--") && i + 1 < args.length) {
+                String name = args[i].substring(2);
+                if (!gen.option(name, Long.parseLong(args[++i]))) {
+                    System.err.println("unknown setting --" + name);
+                    System.exit(-1);
+                }
+            } else {
+                outName = args[i];
+            }
+        }
+        Writer out = new BufferedWriter(outName == null
+                         ? new OutputStreamWriter(System.out)
+                         : new FileWriter(outName), 1 << 16);
+        gen.generate(out);
+        out.close();
+    }
+
+    /**
+     * Sets the setting called name; returns false if there is no such
+     * setting.
+     */
+    public boolean option(String name, long value) {
+        if (name.equals("functions"))     functions = (int)value;
+        else if (name.equals("bytes"))    bytes = value;
+        else if (name.equals("stmts"))    stmts = (int)value;
+        else if (name.equals("depth"))    depth = (int)value;
+        else if (name.equals("structs"))  structs = (int)value;
+        else if (name.equals("ids"))      ids = (int)value;
+        else if (name.equals("formals"))  formals = (int)value;
+        else if (name.equals("errors"))   errors = (int)value;
+        else if (name.equals("seed"))     seed = value;
+        else return false;
+        return true;
+    }
+
+    /**
+     * Writes a program with the current settings to w.
+     */
+    public void generate(Writer w) throws IOException {
+        myRand = new Random(seed);
+        myOut = w;
+        myWritten = 0;
+        for (int i = 0; i < structs; i++) {
+            genStruct(i);
+        }
+        for (int i = 0; i < structs; i++) {
+            line(0, "struct S" + i + " s" + i + ";");
+        }
+        for (int i = 0; i < ids; i++) {
+            line(0, (i % 4 == 3 ? "bool v" : "int v") + i + ";");
+        }
+        for (int i = 0; bytes > 0 ? myWritten < bytes : i < functions; i++) {
+            genFunction(i);
+        }
+        myOut.flush();
+    }
+
+    /**
+     * Returns a program with the current settings as a String.
+     */
+    public String generate() {
+        StringWriter w = new StringWriter();
+        try {
+            generate(w);
+        } catch (IOException ex) {
+            throw new AssertionError(ex);  // a StringWriter cannot fail
+        }
+        return w.toString();
+    }
+
+    private void genStruct(int n) throws IOException {
+        line(0, "struct S" + n + " {");
+        line(4, "int f0;");
+        line(4, "bool f1;");
+        if (n > 0)
+            line(4, "struct S" + (n - 1) + " inner;");
+        line(0, "};");
+    }
+
+    private void genFunction(int n) throws IOException {
+        myFunction = n;
+        StringBuilder sb = new StringBuilder();
+        sb.append(TYPES[n % TYPES.length]).append(" fn").append(n).append("(");
+        for (int i = 0; i < formals; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(i % 2 == 0 ? "int p" : "bool p").append(i);
+        }
+        line(0, sb.append(") {").toString());
+        line(4, "int l0;");
+        line(4, "bool l1;");
+        genBlock(4, depth);
+        if (TYPES[n % TYPES.length].equals("void"))
+            line(4, "return;");
+        else
+            line(4, "return " + exp(2) + ";");
+        line(0, "}");
+    }
+
+    // a block's statements: stmts simple ones, plus one nested block if
+    // there is depth left
+    private void genBlock(int indent, int depthLeft) throws IOException {
+        int nested = depthLeft > 0 ? myRand.nextInt(stmts + 1) : -1;
+        for (int i = 0; i <= stmts; i++) {
+            if (i == nested)
+                genNested(indent, depthLeft);
+            else if (i < stmts)
+                line(indent, seedError() ? badStmt() : stmt());
+        }
+    }
+
+    private void genNested(int indent, int depthLeft) throws IOException {
+        int kind = myRand.nextInt(3);
+        line(indent, (kind == 2 ? "while (" : "if (") + cond() + ") {");
+        genLocals(indent + 4);
+        genBlock(indent + 4, depthLeft - 1);
+        if (kind == 1) {
+            line(indent, "}");
+            line(indent, "else {");
+            genLocals(indent + 4);
+            genBlock(indent + 4, depthLeft - 1);
+        }
+        line(indent, "}");
+    }
+
+    // the declarations at the top of a nested block, which shadow the
+    // function's locals
+    private void genLocals(int indent) throws IOException {
+        line(indent, "int l0;");
+        if (structs > 0)
+            line(indent, "struct S" + myRand.nextInt(structs) + " l2;");
+        if (seedError())
+            line(indent, badDecl());
+    }
+
+    private String stmt() {
+        switch (myRand.nextInt(10)) {
+        case 0:
+            return loc() + "++;";
+        case 1:
+            return loc() + "--;";
+        case 2:
+            return "cin >> " + loc() + ";";
+        case 3:
+            return "cout << " + (myRand.nextBoolean() ? exp(2) : string())
+                   + ";";
+        case 4:
+            return call() + ";";
+        case 5:
+            return var() + " = " + loc() + " = " + exp(2) + ";";
+        case 6:
+            return "l1 = " + cond() + ";";
+        default:
+            return loc() + " = " + exp(3) + ";";
+        }
+    }
+
+    private String exp(int size) {
+        if (size <= 1)
+            return term();
+        switch (myRand.nextInt(8)) {
+        case 0:
+            return "-(" + exp(size - 1) + ")";
+        case 1:
+            return "(" + loc() + " = " + exp(size - 1) + ")";
+        default:
+            int left = 1 + myRand.nextInt(size - 1);
+            return "(" + exp(left) + " " + ARITH[myRand.nextInt(ARITH.length)]
+                   + " " + exp(size - left) + ")";
+        }
+    }
+
+    private String cond() {
+        switch (myRand.nextInt(4)) {
+        case 0:
+            return "!" + loc();
+        case 1:
+            return cond() + (myRand.nextBoolean() ? " && " : " || ") + "l1";
+        default:
+            return exp(1) + " " + COMPARE[myRand.nextInt(COMPARE.length)] + " "
+                   + exp(2);
+        }
+    }
+
+    private String term() {
+        switch (myRand.nextInt(8)) {
+        case 0:
+            return String.valueOf(myRand.nextInt(1000));
+        case 1:
+            return myRand.nextBoolean() ? "true" : "false";
+        case 2:
+            return call();
+        default:
+            return loc();
+        }
+    }
+
+    private String call() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("fn").append(myRand.nextInt(myFunction + 1)).append("(");
+        for (int i = 0; i < formals; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(i % 2 == 0 ? var() : "l1");
+        }
+        return sb.append(")").toString();
+    }
+
+    private String string() {
+        return STRINGS[myRand.nextInt(STRINGS.length)];
+    }
+
+    // a variable, or a field of a struct, reached through a chain of
+    // dot-accesses
+    private String loc() {
+        if (structs == 0 || myRand.nextInt(3) != 0)
+            return var();
+        int s = myRand.nextInt(structs);
+        StringBuilder sb = new StringBuilder("s" + s);
+        for (int i = myRand.nextInt(s + 1); i > 0; i--) {
+            sb.append(".inner");
+        }
+        return sb.append(".f0").toString();
+    }
+
+    private String var() {
+        switch (myRand.nextInt(4)) {
+        case 0:
+            if (formals == 0)
+                return "l0";
+            return "p" + 2 * myRand.nextInt((formals + 1) / 2);
+        case 1:
+            return "l0";
+        default:
+            return ids == 0 ? "l0" : "v" + myRand.nextInt(ids);
+        }
+    }
+
+    private boolean seedError() {
+        return errors > 0 && myRand.nextInt(1000) < errors;
+    }
+
+    private String badStmt() {
+        switch (myRand.nextInt(3)) {
+        case 0:
+            return "undeclared" + myRand.nextInt(10) + " = 1;";
+        case 1:
+            return (structs == 0 ? "v0" : "s0") + ".noSuchField = 1;";
+        default:
+            return "l0.f0 = 1;";
+        }
+    }
+
+    private String badDecl() {
+        switch (myRand.nextInt(3)) {
+        case 0:
+            return "int l0;";
+        case 1:
+            return "void l3;";
+        default:
+            return "struct NoSuchStruct l4;";
+        }
+    }
+
+    private void line(int indent, String text) throws IOException {
+        for (int i = 0; i < indent; i++) {
+            myOut.write(' ');
+        }
+        myOut.write(text);
+        myOut.write('\n');
+        myWritten += indent + text.length() + 1;
+    }
+
+    private static final String[] TYPES = { "int", "int", "bool", "void" };
+    private static final String[] ARITH = { "+", "-", "*", "/" };
+    private static final String[] COMPARE =
+        { "==", "!=", "<", ">", "<=", ">=" };
+    private static final String[] STRINGS =
+        { "\"\"", "\"value: \"", "\"tab\\tnewline\\n\"",
+          "\"quote \\\" apostrophe \\' question \\? backslash \\\\\"" };
+
+    private Random myRand;
+    private Writer myOut;
+    private long myWritten;  // characters written so far
+    private int myFunction;  // number of the function being generated
+}
@@ -0,0 +1,123 @@
+import java.util.*;
+
+/**
+ * NameAnalyzer
+ *
+ * Name analysis run by an ASTWalker instead of by recursion, so that no
+ * expression and no nesting of blocks is too deep for it.  It finds the
+ * same errors as ProgramNode.nameAnalysis, in the same order, and leaves
+ * the same symbols on the IdNodes.
+ *
+ * Declarations other than functions go at most a few nodes deep, so they
+ * are analyzed by their own nameAnalysis methods, as are dot-accesses,
+ * which resolve their chains in a loop.  Scopes are opened when the walk
+ * enters a function or a block and removed when it leaves it.
+ */
+class NameAnalyzer extends ASTVisitor {
+    public NameAnalyzer(SymTable table, Diagnostics diags) {
+        myTable = table;
+        myDiags = diags;
+    }
+
+    public void analyze(ASTnode root) {
+        ASTWalker.walk(root, this);
+    }
+
+    public boolean enter(VarDeclNode node) {
+        node.nameAnalysis(myTable, myDiags);
+        return false;
+    }
+
+    public boolean enter(FormalDeclNode node) {
+        node.nameAnalysis(myTable, myDiags);
+        return false;
+    }
+
+    public boolean enter(StructDeclNode node) {
+        node.nameAnalysis(myTable, myDiags);
+        return false;
+    }
+
+    public boolean enter(FnDeclNode node) {
+        node.declare(myTable, myDiags);
+        myTable.addScope();
+        return true;
+    }
+
+    public void leave(FnDeclNode node) {
+        removeScope();
+    }
+
+    // a function's types are analyzed by FnDeclNode.declare
+    public boolean enter(TypeNode node) {
+        return false;
+    }
+
+    // the scope of a block is opened before its condition is analyzed,
+    // not after, which changes nothing since expressions declare nothing
+    public boolean enter(IfStmtNode node) {
+        myTable.addScope();
+        return true;
+    }
+
+    public void leave(IfStmtNode node) {
+        removeScope();
+    }
+
+    public boolean enter(WhileStmtNode node) {
+        myTable.addScope();
+        return true;
+    }
+
+    public void leave(WhileStmtNode node) {
+        removeScope();
+    }
+
+    public boolean enter(IfElseStmtNode node) {
+        myTable.addScope();
+        myElses.add(node.getElseDeclList());
+        return true;
+    }
+
+    public void leave(IfElseStmtNode node) {
+        removeScope();
+    }
+
+    // the else part of the innermost if-else being walked gets a scope of
+    // its own
+    public boolean enter(DeclListNode node) {
+        int last = myElses.size() - 1;
+        if (last >= 0 && myElses.get(last) == node) {
+            myElses.remove(last);
+            removeScope();
+            myTable.addScope();
+        }
+        return true;
+    }
+
+    public boolean enter(IdNode node) {
+        node.nameAnalysis(myTable, myDiags);
+        return false;
+    }
+
+    public boolean enter(DotAccessExpNode node) {
+        node.nameAnalysis(myTable, myDiags);
+        return false;
+    }
+
+    private void removeScope() {
+        try {
+            myTable.removeScope();
+        } catch (EmptySymTableException ex) {
+            myDiags.fatal(0, 0, Diagnostics.INTERNAL,
+                          "Internal Compiler Error: Empty Sym table");
+        }
+    }
+
+    private SymTable myTable;
+    private Diagnostics myDiags;
+
+    // the else declarations of the if-elses whose then parts are being
+    // walked, innermost last
+    private ArrayList<DeclListNode> myElses = new ArrayList<DeclListNode>();
+}
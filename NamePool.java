@@ -0,0 +1,110 @@
+/**
+ * NamePool
+ *
+ * Interns the identifiers of one compilation.  The scanner hands every
+ * identifier to intern() straight out of its input buffer; each distinct
+ * spelling is stored once and given a dense integer id (0, 1, 2, ...).
+ * IdNode and SymTable compare names by these ids, so name analysis never
+ * hashes or compares strings.
+ *
+ * A NamePool is not synchronized; it belongs to the thread that is
+ * scanning the compilation it was created for.
+ */
+class NamePool {
+    public NamePool() {
+        names = new String[64];
+        hashes = new int[64];
+        slots = new int[128];
+    }
+
+    /**
+     * Returns the id of the name spelled by buf[start .. start+len-1],
+     * adding the name to the pool if it has not been seen before.
+     */
+    public int intern(char[] buf, int start, int len) {
+        int h = 0;
+        for (int i = start; i < start + len; i++) {
+            h = 31 * h + buf[i];
+        }
+        int mask = slots.length - 1;
+        for (int s = mix(h) & mask; ; s = (s + 1) & mask) {
+            int id = slots[s] - 1;
+            if (id < 0)
+                return add(new String(buf, start, len), h, s);
+            if (hashes[id] == h && matches(names[id], buf, start, len))
+                return id;
+        }
+    }
+
+    /**
+     * Returns the id of the given name, adding it to the pool if it has
+     * not been seen before.
+     */
+    public int intern(String name) {
+        int h = name.hashCode();
+        int mask = slots.length - 1;
+        for (int s = mix(h) & mask; ; s = (s + 1) & mask) {
+            int id = slots[s] - 1;
+            if (id < 0)
+                return add(name, h, s);
+            if (hashes[id] == h && names[id].equals(name))
+                return id;
+        }
+    }
+
+    /** Returns the spelling of the name with the given id. */
+    public String name(int id) {
+        return names[id];
+    }
+
+    /** Returns the number of distinct names in the pool. */
+    public int size() {
+        return count;
+    }
+
+    private int add(String name, int h, int slot) {
+        if (count == names.length) {
+            names = java.util.Arrays.copyOf(names, count * 2);
+            hashes = java.util.Arrays.copyOf(hashes, count * 2);
+        }
+        int id = count++;
+        names[id] = name;
+        hashes[id] = h;
+        slots[slot] = id + 1;
+        if (count * 2 > slots.length)
+            rehash();
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < count; id++) {
+            int s = mix(hashes[id]) & mask;
+            while (slots[s] != 0) {
+                s = (s + 1) & mask;
+            }
+            slots[s] = id + 1;
+        }
+    }
+
+    private static boolean matches(String name, char[] buf, int start,
+                                   int len) {
+        if (name.length() != len)
+            return false;
+        for (int i = 0; i < len; i++) {
+            if (name.charAt(i) != buf[start + i])
+                return false;
+        }
+        return true;
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private String[] names;  // id -> spelling
+    private int[] hashes;    // id -> hash of spelling
+    private int count;       // number of names interned so far
+    private int[] slots;     // open-addressing table holding id+1, 0 = empty
+}
@@ -1,5 +1,5 @@
 import java.io.*;
-import java_cup.runtime.*;
+import java.util.*;
 
 /**
  * Main program to test the moo parser.
@@ -10,57 +10,75 @@ import java_cup.runtime.*;
  *       unparsed
  * The program opens the two files, creates a scanner and a parser, and
  * calls the parser.  If the parse is successful, the AST is unparsed.
+ *
+ * Alternatively, many files can be compiled in one run with
+ *    --batch outDir input...
+ * where each input is a source file, a directory of source files or an
+ * @file listing inputs (see BatchCompiler), or
+ *    --server [port]
+ * keeps the JVM running and compiles files sent by p4client.sh (see
+ * CompileServer).
+ *
+ * Options (see CompileOptions) may be given anywhere on the command line;
+ * in batch mode they apply to every file.
  */
 
 public class P4 {
     public static void main(String[] args)
-        throws IOException // may be thrown by the scanner
+        throws IOException
     {
-        // check for command-line args
-        if (args.length != 2) {
-            System.err.println("please supply name of file to be parsed " +
-			                   "and name of file for unparsed version.");
-            System.exit(-1);
+        CompileOptions options = new CompileOptions();
+        List<String> rest = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (i == 0 && (args[i].equals("--batch") ||
+                           args[i].equals("--server"))) {
+                rest.add(args[i]);
+            } else if (args[i].startsWith("--")) {
+                if (!options.parse(args[i])) {
+                    System.err.println("unknown option " + args[i]);
+                    System.exit(-1);
+                }
+            } else {
+                rest.add(args[i]);
+            }
         }
+        args = rest.toArray(new String[rest.size()]);
 
-        // open input file
-        FileReader inFile = null;
-        try {
-            inFile = new FileReader(args[0]);
-        } catch (FileNotFoundException ex) {
-            System.err.println("File " + args[0] + " not found.");
-            System.exit(-1);
+        if (args.length > 0 && args[0].equals("--batch")) {
+            if (args.length < 3) {
+                System.err.println("please supply an output directory " +
+                                   "and at least one input.");
+                System.exit(-1);
+            }
+            BatchCompiler batch = new BatchCompiler(new File(args[1]),
+                                                    options);
+            List<String> inputs =
+                Arrays.asList(args).subList(2, args.length);
+            System.exit(batch.run(inputs, System.out));
         }
 
-        // open output file
-        PrintWriter outFile = null;
-        try {
-            outFile = new PrintWriter(args[1]);
-        } catch (FileNotFoundException ex) {
-            System.err.println("File " + args[1] +
-                               " could not be opened for writing.");
-            System.exit(-1);
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = CompileServer.DEFAULT_PORT;
+            if (args.length > 1)
+                port = Integer.parseInt(args[1]);
+            new CompileServer(port).serve();
+            return;
         }
 
-        parser P = new parser(new Yylex(inFile));
-
-        Symbol root = null; // the parser will return a Symbol whose value
-                            // field is the translation of the root nonterminal
-                            // (i.e., of the nonterminal "program")
-
-        try {
-            root = P.parse(); // do the parse
-            System.out.println ("program parsed correctly.");
-        } catch (Exception ex){
-            System.err.println("Exception occured during parse: " + ex);
+        // check for command-line args
+        if (args.length != 2) {
+            System.err.println("please supply name of file to be parsed " +
+			                   "and name of file for unparsed version.");
             System.exit(-1);
         }
-        ((ProgramNode)root.value).nameAnalysis();
-        if (ErrMsg.fatalErrors == true)
-            System.exit(1); //name analysis errors were present
-        ((ASTnode)root.value).unparse(outFile, 0);
-        outFile.close();
 
-        return;
+        CompileStats stats = options.newStats(args[0]);
+        int status = Compiler.compile(args[0], args[1], options,
+                                      new Diagnostics(), stats,
+                                      System.out, System.err);
+        if (stats != null)
+            options.writeStats(stats.toJson(), System.out);
+        if (status != Compiler.SUCCESS)
+            System.exit(status);
     }
 }
@@ -0,0 +1,117 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * ParallelNameAnalyzer
+ *
+ * Name analysis in two passes (--parallel).  The first goes through the
+ * top-level declarations in order, on the calling thread, and declares
+ * the globals, the structs and the functions' signatures.  The second
+ * analyzes the function bodies on a ForkJoinPool, each in a SymTable of
+ * its own layered over a FrozenScope of the globals, which they all read
+ * at once without locking.  A layer sees only the globals declared up to
+ * its function, so a body still cannot use a name declared after it.
+ *
+ * Every function, and every run of other declarations between two
+ * functions, reports to a Diagnostics of its own.  These are added to
+ * the compilation's in declaration order once both passes are done, so
+ * the errors are the same, and in the same order, as NameAnalyzer's.
+ */
+class ParallelNameAnalyzer {
+    public ParallelNameAnalyzer(SymTable table, Diagnostics diags,
+                                ForkJoinPool pool) {
+        myTable = table;
+        myDiags = diags;
+        myPool = pool;
+    }
+
+    public void analyze(ProgramNode program) {
+        ASTnode list = program.kid(0);
+        ArrayList<Diagnostics> parts = new ArrayList<Diagnostics>();
+        Diagnostics part = null;
+        for (int i = 0; i < list.numKids(); i++) {
+            DeclNode decl = (DeclNode)list.kid(i);
+            if (decl instanceof FnDeclNode) {
+                Diagnostics fnDiags = new Diagnostics();
+                parts.add(fnDiags);
+                ((FnDeclNode)decl).declare(myTable, fnDiags);
+                myFns.add((FnDeclNode)decl);
+                myVisible.add(myTable.getNumGlobals());
+                myFnDiags.add(fnDiags);
+                part = null;
+            } else {
+                if (part == null) {
+                    part = new Diagnostics();
+                    parts.add(part);
+                }
+                decl.nameAnalysis(myTable, part);
+            }
+        }
+
+        myGlobals = myTable.freezeGlobals();
+        myLayers = new SymTable[myFns.size()];
+        myPool.invoke(new Bodies(0, myFns.size()));
+
+        for (Diagnostics d : parts) {
+            for (Diagnostics.Diagnostic diag : d.getDiagnostics()) {
+                myDiags.add(diag);
+            }
+        }
+        for (SymTable layer : myLayers) {
+            myTable.addPeaks(layer);
+        }
+        myFns.clear();
+        myVisible.clear();
+        myFnDiags.clear();
+        myGlobals = null;
+        myLayers = null;
+    }
+
+    // analyzes the name, formals and body of function i, as NameAnalyzer
+    // does after declaring it
+    private void analyzeBody(int i) {
+        FnDeclNode fn = myFns.get(i);
+        SymTable layer = new SymTable(myGlobals, myVisible.get(i));
+        NameAnalyzer analyzer = new NameAnalyzer(layer, myFnDiags.get(i));
+        myLayers[i] = layer;
+        for (int k = 1; k < fn.numKids(); k++) {
+            analyzer.analyze(fn.kid(k));
+        }
+    }
+
+    // the bodies of functions lo up to hi, split in halves until there is
+    // one each
+    private class Bodies extends RecursiveAction {
+        Bodies(int lo, int hi) {
+            myLo = lo;
+            myHi = hi;
+        }
+
+        protected void compute() {
+            if (myHi - myLo <= 1) {
+                if (myLo < myHi)
+                    analyzeBody(myLo);
+                return;
+            }
+            int mid = (myLo + myHi) >>> 1;
+            invokeAll(new Bodies(myLo, mid), new Bodies(mid, myHi));
+        }
+
+        private int myLo;
+        private int myHi;
+    }
+
+    private SymTable myTable;
+    private Diagnostics myDiags;
+    private ForkJoinPool myPool;
+
+    // the functions, in order, with the number of globals declared up to
+    // each and the Diagnostics they report to
+    private ArrayList<FnDeclNode> myFns = new ArrayList<FnDeclNode>();
+    private ArrayList<Integer> myVisible = new ArrayList<Integer>();
+    private ArrayList<Diagnostics> myFnDiags = new ArrayList<Diagnostics>();
+
+    // the second pass's globals, and the tables the bodies were analyzed in
+    private FrozenScope myGlobals;
+    private SymTable[] myLayers;
+}
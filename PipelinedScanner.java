@@ -0,0 +1,150 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java_cup.runtime.Scanner;
+import java_cup.runtime.Symbol;
+
+/**
+ * PipelinedScanner
+ *
+ * Runs another scanner on a thread of its own, ahead of the parser, so
+ * that scanning and parsing overlap (--pipeline).  Tokens are passed to
+ * the parser in batches through a bounded queue; when the queue is full
+ * the scanning thread waits, so it never gets more than QUEUED * BATCH
+ * tokens ahead.
+ *
+ * The scanner reports its errors into a Diagnostics of its own.  Each
+ * batch carries the errors reported while scanning its tokens, and they
+ * are copied into the compilation's Diagnostics as the parser takes the
+ * tokens, so errors come out in the same order as without the pipeline,
+ * and none are reported for input after the point where parsing stopped.
+ *
+ * Once source has returned EOF, every further call returns a new EOF
+ * token at the same position, as Yylex does; the parser rejects a token
+ * it has already seen.
+ *
+ * close() stops the scanning thread if the parser gives up early.
+ */
+class PipelinedScanner implements Scanner {
+    private static final int BATCH = 512;   // tokens per batch
+    private static final int QUEUED = 64;   // batches the queue holds
+
+    /**
+     * Creates a scanner returning the tokens of source, which reports its
+     * errors to sourceDiags; they are passed on to diags.
+     */
+    public PipelinedScanner(Scanner source, Diagnostics sourceDiags,
+                            Diagnostics diags) {
+        mySource = source;
+        mySourceDiags = sourceDiags;
+        myDiags = diags;
+    }
+
+    public Symbol next_token() throws Exception {
+        if (myThread == null)
+            start();
+        while (myNext == myBatch.count) {
+            if (myBatch.error != null) {
+                replay(myBatch.diags.size());
+                throw myBatch.error;
+            }
+            if (myEof != null)
+                return new Symbol(sym.EOF, myEof.left, myEof.right);
+            myBatch = myQueue.take();
+            myNext = 0;
+            myReplayed = 0;
+        }
+        Symbol token = myBatch.tokens[myNext];
+        replay(myBatch.marks[myNext]);
+        myNext++;
+        if (token.sym == sym.EOF)
+            myEof = token;
+        return token;
+    }
+
+    /**
+     * Stops the scanning thread, if it is still running.
+     */
+    public void close() {
+        if (myThread != null)
+            myThread.interrupt();
+    }
+
+    private void start() {
+        myBatch = new Batch();  // an empty batch, used up at once
+        myThread = new Thread("moo scanner") {
+            public void run() {
+                produce();
+            }
+        };
+        myThread.setDaemon(true);
+        myThread.start();
+    }
+
+    // copies the batch's diagnostics up to mark into myDiags
+    private void replay(int mark) {
+        while (myReplayed < mark) {
+            myDiags.add(myBatch.diags.get(myReplayed++));
+        }
+    }
+
+    // the scanning thread: fills batches until end of file
+    private void produce() {
+        List<Diagnostics.Diagnostic> reported =
+            mySourceDiags.getDiagnostics();
+        int copied = 0;  // entries of reported already put in a batch
+        boolean eof = false;
+        try {
+            while (!eof) {
+                Batch batch = new Batch();
+                try {
+                    while (batch.count < BATCH && !eof) {
+                        Symbol token = mySource.next_token();
+                        while (copied < reported.size()) {
+                            batch.diags.add(reported.get(copied++));
+                        }
+                        batch.tokens[batch.count] = token;
+                        batch.marks[batch.count] = batch.diags.size();
+                        batch.count++;
+                        eof = token.sym == sym.EOF;
+                    }
+                } catch (Exception ex) {
+                    while (copied < reported.size()) {
+                        batch.diags.add(reported.get(copied++));
+                    }
+                    batch.error = ex;
+                    eof = true;
+                }
+                myQueue.put(batch);
+            }
+        } catch (InterruptedException ex) {
+            // closed: the parser wants no more tokens
+        }
+    }
+
+    private Scanner mySource;
+    private Diagnostics mySourceDiags;
+    private Diagnostics myDiags;
+    private BlockingQueue<Batch> myQueue =
+        new ArrayBlockingQueue<Batch>(QUEUED);
+    private Thread myThread;
+
+    // used only by the parser's thread
+    private Batch myBatch;     // the batch tokens are being taken from
+    private int myNext;        // index in myBatch of the next token
+    private int myReplayed;    // diagnostics of myBatch already copied
+    private Symbol myEof;      // the EOF token, once it has been returned
+
+    /**
+     * Up to BATCH tokens.  marks[i] is the number of diags reported before
+     * tokens[i] was returned; error, if not null, is what the scanner threw
+     * after the last of them.
+     */
+    private static class Batch {
+        final Symbol[] tokens = new Symbol[BATCH];
+        final int[] marks = new int[BATCH];
+        final ArrayList<Diagnostics.Diagnostic> diags =
+            new ArrayList<Diagnostics.Diagnostic>();
+        int count;
+        Exception error;
+    }
+}
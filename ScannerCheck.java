@@ -0,0 +1,148 @@
+import java.io.*;
+import java.util.*;
+import java_cup.runtime.Scanner;
+import java_cup.runtime.Symbol;
+
+/**
+ * ScannerCheck
+ *
+ * Checks that FastScanner and Yylex agree, token for token: same kinds,
+ * positions and values, and the same diagnostics reported before each
+ * token.  Each file given is checked; with no files, programs generated
+ * by MooGen (with seeded errors) and random fragments of moo text, which
+ * exercise the odd corners of the string and comment rules, are checked
+ * instead.
+ *
+ * usage: java ScannerCheck [file ...]
+ * The exit status is 0 if every input agreed, 1 otherwise.
+ */
+public class ScannerCheck {
+    public static void main(String[] args) throws IOException {
+        int failed = 0;
+        int inputs = 0;
+        if (args.length > 0) {
+            for (String file : args) {
+                if (!check(file, readFile(file)))
+                    failed++;
+                inputs++;
+            }
+        } else {
+            MooGen gen = new MooGen();
+            gen.functions = 20;
+            gen.errors = 50;
+            for (int seed = 0; seed < 20; seed++) {
+                gen.seed = seed;
+                if (!check("MooGen seed " + seed, gen.generate()))
+                    failed++;
+                inputs++;
+            }
+            Random rand = new Random(536);
+            for (int i = 0; i < 100000; i++) {
+                if (!check("fragment " + i, fragment(rand)))
+                    failed++;
+                inputs++;
+            }
+        }
+        System.out.println(inputs + " inputs checked, " + failed +
+                           " differed");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    // scans text with both scanners and reports the first difference
+    private static boolean check(String name, String text)
+        throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 127) {
+                // Yylex has no table entries for such characters
+                System.out.println(name + ": skipped, not 7-bit text");
+                return true;
+            }
+        }
+        Diagnostics jlexDiags = new Diagnostics();
+        Diagnostics fastDiags = new Diagnostics();
+        Scanner jlex = new Yylex(new StringReader(text), jlexDiags);
+        Scanner fast = new FastScanner(new StringReader(text), fastDiags);
+        int seen = 0;  // diagnostics already compared
+        for (int n = 1; ; n++) {
+            String expected;
+            String actual;
+            boolean done = true;
+            try {
+                Symbol token = jlex.next_token();
+                expected = describe(token, jlexDiags, seen);
+                done = token.sym == sym.EOF;
+            } catch (Exception ex) {
+                expected = ex.toString();
+            }
+            try {
+                actual = describe(fast.next_token(), fastDiags, seen);
+            } catch (Exception ex) {
+                actual = ex.toString();
+            }
+            if (!expected.equals(actual)) {
+                System.out.println(name + ": token " + n + " differs");
+                System.out.println("    Yylex:       " + expected);
+                System.out.println("    FastScanner: " + actual);
+                return false;
+            }
+            if (done)
+                return true;
+            seen = jlexDiags.getDiagnostics().size();
+        }
+    }
+
+    // the token, with the diagnostics reported since the first seen
+    private static String describe(Symbol token, Diagnostics diags,
+                                   int seen) {
+        StringBuilder sb = new StringBuilder(sym.terminalNames[token.sym]);
+        sb.append(' ').append(token.left).append(':').append(token.right);
+        if (token.value instanceof TokenVal) {
+            TokenVal val = (TokenVal)token.value;
+            sb.append(' ').append(val.linenum).append(':').append(val.charnum);
+        }
+        if (token.value instanceof IdTokenVal)
+            sb.append(' ').append(((IdTokenVal)token.value).idVal);
+        if (token.value instanceof IntLitTokenVal)
+            sb.append(' ').append(((IntLitTokenVal)token.value).intVal);
+        if (token.value instanceof StrLitTokenVal)
+            sb.append(' ').append(((StrLitTokenVal)token.value).strVal);
+        List<Diagnostics.Diagnostic> all = diags.getDiagnostics();
+        for (Diagnostics.Diagnostic d : all.subList(seen, all.size())) {
+            sb.append(" [").append(d).append(']');
+        }
+        return sb.toString();
+    }
+
+    // a short random string of characters and words that matter to the
+    // scanner
+    private static String fragment(Random rand) {
+        StringBuilder sb = new StringBuilder();
+        int len = rand.nextInt(30);
+        for (int i = 0; i < len; i++) {
+            sb.append(PIECES[rand.nextInt(PIECES.length)]);
+        }
+        return sb.toString();
+    }
+
+    private static final String[] PIECES = {
+        "\"", "\"", "\\", "\\", "n", "t", "'", "?", "a", "_", "x1",
+        "\n", "\r", " ", "\t", "/", "#", "<", ">", "=", "!", "&", "|",
+        "+", "-", "*", ".", ";", "{", "(", "@", "0", "42",
+        "2147483647", "2147483648", "99999999999", "int", "while", "cout"
+    };
+
+    private static String readFile(String file) throws IOException {
+        Reader in = new FileReader(file);
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buf = new char[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                sb.append(buf, 0, n);
+            }
+            return sb.toString();
+        } finally {
+            in.close();
+        }
+    }
+}
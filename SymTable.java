@@ -1,76 +1,272 @@
 import java.util.*;
 
+/**
+ * SymTable
+ *
+ * A stack of scopes mapping names (NamePool ids) to symbols.  Instead of
+ * one map per scope that has to be searched innermost-first, every name
+ * maps to the chain of its visible declarations (innermost first), so
+ * lookupLocal and lookupGlobal are a single probe however deeply scopes are
+ * nested.
+ *
+ * The declarations of all the current scopes are kept in one log, in the
+ * order they were made, as parallel arrays; a chain links declarations by
+ * their places in the log.  A scope is just the place in the log where
+ * its declarations start, so addScope allocates nothing, and removeScope
+ * pops the log back to that mark, putting each name's chain back the way
+ * it was.  Nothing is allocated until the first declaration.
+ *
+ * The global scope can be frozen into a FrozenScope, and a table can be
+ * layered over one: it sees the frozen declarations beneath its own
+ * scopes, but only the first so many of them, so that a function body
+ * analyzed after the whole global scope has been built still sees only
+ * what was declared before it.  Any number of layers, on any threads, can
+ * share one FrozenScope.
+ */
 public class SymTable {
-    private List<HashMap<String, SemSym>> list;
-    
+    private int[] keys;       // open-addressing table of name ids, -1 = empty
+    private int[] heads;      // log index of the innermost visible
+                              // declaration of keys[i], -1 = none
+    private SemSym[] headSyms; // and its symbol, so lookups go no further
+    private int numKeys;
+
+    // the log: the name and symbol of each declaration, and the log index
+    // of the declaration of the same name it shadows (-1 = none)
+    private int[] names;
+    private SemSym[] syms;
+    private int[] shadowed;
+    private int numEntries;   // declarations in all current scopes
+
+    private int[] marks;      // log index of each scope's first declaration
+    private int depth;        // number of scopes
+    private int peakDepth;
+    private int peakEntries;
+
+    private FrozenScope globals; // the scope this is layered over, or null
+    private int numVisible;      // declarations of globals this can see
+
     public SymTable() {
-        list = new LinkedList<HashMap<String, SemSym>>();
-        list.add(new HashMap<String, SemSym>());
+        marks = new int[8];
+        depth = 1;
+        peakDepth = 1;
     }
-    
-    public void addDecl(String name, SemSym sym) 
+
+    /**
+     * Creates a table with one scope, layered over the first numVisible
+     * declarations of globals.  Its peaks count globals as one more scope
+     * holding numVisible entries.
+     */
+    public SymTable(FrozenScope globals, int numVisible) {
+        this();
+        this.globals = globals;
+        this.numVisible = numVisible;
+        peakDepth = 2;
+        peakEntries = numVisible;
+    }
+
+    public void addDecl(int name, SemSym sym)
     throws DuplicateSymException, EmptySymTableException {
-        if (name == null || sym == null)
+        if (name < 0 || sym == null)
             throw new NullPointerException();
-        
-        if (list.isEmpty())
+
+        if (depth == 0)
             throw new EmptySymTableException();
-        
-        HashMap<String, SemSym> symTab = list.get(0);
-        if (symTab.containsKey(name))
+
+        int slot = slot(name);
+        int old = heads[slot];
+        if (old >= marks[depth - 1])
             throw new DuplicateSymException();
-        
-        symTab.put(name, sym);
+
+        if (names == null || numEntries == names.length)
+            growLog();
+        int n = numEntries++;
+        names[n] = name;
+        syms[n] = sym;
+        shadowed[n] = old;
+        heads[slot] = n;
+        headSyms[slot] = sym;
+        if (numVisible + numEntries > peakEntries)
+            peakEntries = numVisible + numEntries;
     }
-    
+
     public void addScope() {
-        list.add(0, new HashMap<String, SemSym>());
+        if (depth == marks.length)
+            marks = Arrays.copyOf(marks, 2 * depth);
+        marks[depth++] = numEntries;
+        int total = globals == null ? depth : depth + 1;
+        if (total > peakDepth)
+            peakDepth = total;
     }
-    
-    public SemSym lookupLocal(String name) {
-        if (list.isEmpty())
+
+    public SemSym lookupLocal(int name) {
+        if (depth == 0)
             return null;
-        
-        HashMap<String, SemSym> symTab = list.get(0); 
-        return symTab.get(name);
+
+        int s = find(name);
+        if (s < 0 || heads[s] < marks[depth - 1])
+            return null;
+        return headSyms[s];
     }
-    
-    public SemSym lookupGlobal(String name) {
-        if (list.isEmpty())
+
+    public SemSym lookupGlobal(int name) {
+        if (depth == 0)
             return null;
-        
-        for (HashMap<String, SemSym> symTab : list) {
-            SemSym sym = symTab.get(name);
-            if (sym != null)
-                return sym;
-        }
-        return null;
+
+        int s = find(name);
+        if (s >= 0 && headSyms[s] != null)
+            return headSyms[s];
+        return globals == null ? null : globals.lookup(name, numVisible);
     }
 
-    public SemSym lookupStruct(String name) {
-        if (list.isEmpty())
+    public SemSym lookupStruct(int name) {
+        if (depth == 0)
             return null;
-        for (HashMap<String, SemSym> symTab : list) {
-            SemSym sym = symTab.get(name);
-            if (!(sym instanceof StructDefSym))
-                continue;
-            if (sym != null)
+        int s = find(name);
+        int first = s < 0 ? -1 : heads[s];
+        for (int entry = first; entry >= 0; entry = shadowed[entry]) {
+            if (syms[entry] instanceof StructDefSym)
+                return syms[entry];
+        }
+        if (globals != null) {
+            SemSym sym = globals.lookup(name, numVisible);
+            if (sym instanceof StructDefSym)
                 return sym;
         }
         return null;
     }
-    
+
     public void removeScope() throws EmptySymTableException {
-        if (list.isEmpty())
+        if (depth == 0)
             throw new EmptySymTableException();
-        list.remove(0);
+        int mark = marks[--depth];
+        for (int i = numEntries - 1; i >= mark; i--) {
+            int s = slot(names[i]);
+            int old = shadowed[i];
+            heads[s] = old;
+            headSyms[s] = old < 0 ? null : syms[old];
+            syms[i] = null;
+        }
+        numEntries = mark;
+    }
+
+    /** Returns the largest number of scopes this table has held at once. */
+    public int getPeakDepth() {
+        return peakDepth;
     }
-    
-    public void print() {
+
+    /** Returns the largest number of declarations held at once. */
+    public int getPeakEntries() {
+        return peakEntries;
+    }
+
+    /** Returns the number of declarations in the outermost scope. */
+    public int getNumGlobals() {
+        if (depth == 0)
+            return 0;
+        return depth > 1 ? marks[1] : numEntries;
+    }
+
+    /**
+     * Returns an immutable copy of the outermost scope, whose declarations
+     * are numbered in the order they were added.
+     */
+    public FrozenScope freezeGlobals() {
+        return new FrozenScope(names, syms, getNumGlobals());
+    }
+
+    /**
+     * Raises this table's peaks to those of layer, a table layered over a
+     * frozen copy of its globals.
+     */
+    public void addPeaks(SymTable layer) {
+        peakDepth = Math.max(peakDepth, layer.peakDepth);
+        peakEntries = Math.max(peakEntries, layer.peakEntries);
+    }
+
+    public void print(NamePool pool) {
         System.out.print("\nSym Table\n");
-        for (HashMap<String, SemSym> symTab : list) {
+        for (int d = depth - 1; d >= 0; d--) {
+            int end = d + 1 < depth ? marks[d + 1] : numEntries;
+            HashMap<String, SemSym> symTab = new HashMap<String, SemSym>();
+            for (int i = marks[d]; i < end; i++) {
+                symTab.put(pool.name(names[i]), syms[i]);
+            }
             System.out.println(symTab.toString());
         }
         System.out.println();
     }
+
+    // returns the slot of name, or -1 if it has never been declared here
+    private int find(int name) {
+        if (keys == null)
+            return -1;
+        int mask = keys.length - 1;
+        for (int s = name & mask; keys[s] != -1; s = (s + 1) & mask) {
+            if (keys[s] == name)
+                return s;
+        }
+        return -1;
+    }
+
+    // returns the slot for name, claiming one if name has never been
+    // declared in this table; slots are never given back, since a table
+    // only ever sees a bounded set of names
+    private int slot(int name) {
+        if (keys == null) {
+            keys = new int[16];
+            Arrays.fill(keys, -1);
+            heads = new int[16];
+            headSyms = new SemSym[16];
+        }
+        int mask = keys.length - 1;
+        int s = name & mask;
+        for (; keys[s] != -1; s = (s + 1) & mask) {
+            if (keys[s] == name)
+                return s;
+        }
+        if ((numKeys + 1) * 2 > keys.length) {
+            grow();
+            return slot(name);
+        }
+        keys[s] = name;
+        heads[s] = -1;
+        numKeys++;
+        return s;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldHeads = heads;
+        SemSym[] oldHeadSyms = headSyms;
+        keys = new int[oldKeys.length * 2];
+        Arrays.fill(keys, -1);
+        heads = new int[keys.length];
+        headSyms = new SemSym[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == -1)
+                continue;
+            int s = oldKeys[i] & mask;
+            while (keys[s] != -1) {
+                s = (s + 1) & mask;
+            }
+            keys[s] = oldKeys[i];
+            heads[s] = oldHeads[i];
+            headSyms[s] = oldHeadSyms[i];
+        }
+    }
+
+    // makes room for more declarations in the log
+    private void growLog() {
+        if (names == null) {
+            names = new int[8];
+            syms = new SemSym[8];
+            shadowed = new int[8];
+            return;
+        }
+        int size = 2 * names.length;
+        names = Arrays.copyOf(names, size);
+        syms = Arrays.copyOf(syms, size);
+        shadowed = Arrays.copyOf(shadowed, size);
+    }
 }
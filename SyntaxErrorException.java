@@ -0,0 +1,3 @@
+public class SyntaxErrorException extends Exception {
+
+}
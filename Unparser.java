@@ -0,0 +1,355 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Unparser
+ *
+ * Unparses an AST without recursion, so that trees of any depth can be
+ * written out.  The output is exactly what the nodes' unparse methods
+ * write, type annotations included.
+ *
+ * The unparser keeps a stack of what is still to be written: text, line
+ * ends, indentation and nodes.  Writing a node (its enter method here)
+ * writes the text it starts with and pushes the rest, last piece first.
+ * Lists push one kid at a time, so the stack holds a few entries per
+ * level of nesting, however long the lists.  Leaves, and declarations
+ * other than functions, which go only a few nodes deep, are written by
+ * their own unparse methods.
+ */
+class Unparser extends ASTVisitor {
+    public Unparser(PrintWriter p) {
+        myOut = p;
+    }
+
+    public void unparse(ASTnode root, int indent) {
+        push(root, indent);
+        while (myDepth > 0) {
+            myDepth--;
+            Object item = myItems[myDepth];
+            myItems[myDepth] = null;
+            myIndent = myIndents[myDepth];
+            myNextKid = myNextKids[myDepth];
+            if (item instanceof String)
+                myOut.print((String)item);
+            else if (item == NEWLINE)
+                myOut.println();
+            else if (item == INDENT)
+                doIndent();
+            else
+                ((ASTnode)item).enter(this);
+        }
+    }
+
+    // leaves
+    public boolean enterNode(ASTnode node) {
+        node.unparse(myOut, myIndent);
+        return false;
+    }
+
+    public boolean enter(ProgramNode node) {
+        push(node.kid(0), myIndent);
+        return false;
+    }
+
+    public boolean enter(DeclListNode node) {
+        list(node, null);
+        return false;
+    }
+
+    public boolean enter(FormalsListNode node) {
+        list(node, ", ");
+        return false;
+    }
+
+    public boolean enter(StmtListNode node) {
+        list(node, null);
+        return false;
+    }
+
+    public boolean enter(ExpListNode node) {
+        list(node, ", ");
+        return false;
+    }
+
+    public boolean enter(FnBodyNode node) {
+        push(node.kid(1), myIndent);
+        push(node.kid(0), myIndent);
+        return false;
+    }
+
+    public boolean enter(FnDeclNode node) {
+        int indent = myIndent;
+        doIndent();
+        node.kid(0).unparse(myOut, 0);
+        myOut.print(" ");
+        myOut.print(((IdNode)node.kid(1)).getId());
+        myOut.print("(");
+        println("}\n");
+        push(node.kid(3), indent + 4);
+        println(") {");
+        push(node.kid(2), 0);
+        return false;
+    }
+
+    public boolean enter(AssignStmtNode node) {
+        doIndent();
+        println(";");
+        push(node.kid(0), -1);  // no parentheses
+        return false;
+    }
+
+    public boolean enter(PostIncStmtNode node) {
+        doIndent();
+        println("++;");
+        push(node.kid(0), 0);
+        return false;
+    }
+
+    public boolean enter(PostDecStmtNode node) {
+        doIndent();
+        println("--;");
+        push(node.kid(0), 0);
+        return false;
+    }
+
+    public boolean enter(ReadStmtNode node) {
+        doIndent();
+        myOut.print("cin >> ");
+        println(";");
+        push(node.kid(0), 0);
+        return false;
+    }
+
+    public boolean enter(WriteStmtNode node) {
+        doIndent();
+        myOut.print("cout << ");
+        println(";");
+        push(node.kid(0), 0);
+        return false;
+    }
+
+    public boolean enter(IfStmtNode node) {
+        block(node, "if (");
+        return false;
+    }
+
+    public boolean enter(WhileStmtNode node) {
+        block(node, "while (");
+        return false;
+    }
+
+    public boolean enter(IfElseStmtNode node) {
+        int indent = myIndent;
+        doIndent();
+        myOut.print("if (");
+        println("}");
+        push(INDENT, indent);
+        push(node.kid(4), indent + 4);
+        push(node.kid(3), indent + 4);
+        println("else {");
+        push(INDENT, indent);
+        println("}");
+        push(INDENT, indent);
+        push(node.kid(2), indent + 4);
+        push(node.kid(1), indent + 4);
+        println(") {");
+        push(node.kid(0), 0);
+        return false;
+    }
+
+    public boolean enter(CallStmtNode node) {
+        doIndent();
+        println(";");
+        push(node.kid(0), myIndent);
+        return false;
+    }
+
+    public boolean enter(ReturnStmtNode node) {
+        doIndent();
+        myOut.print("return");
+        println(";");
+        if (node.kid(0) != null) {
+            push(node.kid(0), 0);
+            push(" ", 0);
+        }
+        return false;
+    }
+
+    public boolean enter(DotAccessExpNode node) {
+        myOut.print("(");
+        push(node.kid(1), 0);
+        push(").", 0);
+        push(node.kid(0), 0);
+        return false;
+    }
+
+    public boolean enter(AssignNode node) {
+        if (myIndent != -1) {
+            myOut.print("(");
+            push(")", 0);
+        }
+        push(node.kid(1), 0);
+        push(" = ", 0);
+        push(node.kid(0), 0);
+        return false;
+    }
+
+    public boolean enter(CallExpNode node) {
+        IdNode id = (IdNode)node.kid(0);
+        id.unparse(myOut, 0);
+        myOut.print("(");
+        String[] paramTypes = ((FnSym)id.getSym()).getParamTypes();
+        for (int i = 0; i < paramTypes.length; i++) {
+            myOut.print(paramTypes[i]);
+            if (i != paramTypes.length - 1)
+                myOut.print(",");
+        }
+        myOut.print("->");
+        myOut.print(((FnSym)id.getSym()).getReturnType());
+        myOut.print(")(");
+        push(")", 0);
+        if (node.kid(1) != null)
+            push(node.kid(1), 0);
+        return false;
+    }
+
+    public boolean enter(UnaryMinusNode node) {
+        return unary(node, "(-");
+    }
+
+    public boolean enter(NotNode node) {
+        return unary(node, "(!");
+    }
+
+    public boolean enter(PlusNode node) {
+        return binary(node, " + ");
+    }
+
+    public boolean enter(MinusNode node) {
+        return binary(node, " - ");
+    }
+
+    public boolean enter(TimesNode node) {
+        return binary(node, " * ");
+    }
+
+    public boolean enter(DivideNode node) {
+        return binary(node, " / ");
+    }
+
+    public boolean enter(AndNode node) {
+        return binary(node, " && ");
+    }
+
+    public boolean enter(OrNode node) {
+        return binary(node, " || ");
+    }
+
+    public boolean enter(EqualsNode node) {
+        return binary(node, " == ");
+    }
+
+    public boolean enter(NotEqualsNode node) {
+        return binary(node, " != ");
+    }
+
+    public boolean enter(LessNode node) {
+        return binary(node, " < ");
+    }
+
+    public boolean enter(GreaterNode node) {
+        return binary(node, " > ");
+    }
+
+    public boolean enter(LessEqNode node) {
+        return binary(node, " <= ");
+    }
+
+    public boolean enter(GreaterEqNode node) {
+        return binary(node, " >= ");
+    }
+
+    // an if or while without else: keyword, condition and block
+    private void block(ASTnode node, String start) {
+        int indent = myIndent;
+        doIndent();
+        myOut.print(start);
+        println("}");
+        push(INDENT, indent);
+        push(node.kid(2), indent + 4);
+        push(node.kid(1), indent + 4);
+        println(") {");
+        push(node.kid(0), 0);
+    }
+
+    private boolean unary(ASTnode node, String start) {
+        myOut.print(start);
+        push(")", 0);
+        push(node.kid(0), 0);
+        return false;
+    }
+
+    private boolean binary(ASTnode node, String op) {
+        myOut.print("(");
+        push(")", 0);
+        push(node.kid(1), 0);
+        push(op, 0);
+        push(node.kid(0), 0);
+        return false;
+    }
+
+    // pushes the kid of list numbered myNextKid and, after it, the rest of
+    // the list, with separator between the kids
+    private void list(ASTnode list, String separator) {
+        int i = myNextKid;
+        if (i == list.numKids())
+            return;
+        if (i + 1 < list.numKids()) {
+            push(list, myIndent);
+            myNextKids[myDepth - 1] = i + 1;
+            if (separator != null)
+                push(separator, 0);
+        }
+        push(list.kid(i), myIndent);
+    }
+
+    // pushes text, to be written as a line of its own
+    private void println(String text) {
+        push(NEWLINE, 0);
+        push(text, 0);
+    }
+
+    private void doIndent() {
+        ASTnode.indent(myOut, myIndent);
+    }
+
+    private void push(Object item, int indent) {
+        if (myDepth == myItems.length) {
+            myItems = Arrays.copyOf(myItems, 2 * myDepth);
+            myIndents = Arrays.copyOf(myIndents, 2 * myDepth);
+            myNextKids = Arrays.copyOf(myNextKids, 2 * myDepth);
+        }
+        myItems[myDepth] = item;
+        myIndents[myDepth] = indent;
+        myNextKids[myDepth] = 0;
+        myDepth++;
+    }
+
+    // stack entries that stand for a line end and for indentation
+    private static final Object NEWLINE = new Object();
+    private static final Object INDENT = new Object();
+
+    private PrintWriter myOut;
+
+    // what is still to be written, next last: text, NEWLINE, INDENT or a
+    // node, with the indentation it is written at and, for a list, the
+    // number of its first kid still to be written
+    private Object[] myItems = new Object[64];
+    private int[] myIndents = new int[64];
+    private int[] myNextKids = new int[64];
+    private int myDepth;
+
+    // the entry being written
+    private int myIndent;
+    private int myNextKid;
+}
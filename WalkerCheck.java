@@ -0,0 +1,285 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.CRC32;
+
+/**
+ * WalkerCheck
+ *
+ * Checks that NameAnalyzer, ParallelNameAnalyzer and Unparser agree with
+ * the recursive nameAnalysis and unparse methods in ast.java.  Each input
+ * is parsed once for each kind of analysis, and every kind must report
+ * the same diagnostics, in the same order, leave its symbol table with
+ * the same peak depth and number of entries, and leave the tree so that
+ * it unparses to the same bytes.  On the tree the recursive methods
+ * analyzed, Unparser must write the same bytes as the unparse methods.
+ * As in the compiler, programs with errors are not unparsed.
+ * ParallelNameAnalyzer runs on a pool of WORKERS threads, however many
+ * processors there are.
+ *
+ * Each file given is checked; with no files, programs generated by
+ * MooGen, with and without seeded errors, are checked, and then an
+ * expression chain of CHAIN terms and blocks nested NESTING deep.  The
+ * check runs on a thread with a stack of STACK megabytes, so that the
+ * recursive methods get through those too.  Outputs are compared by the
+ * CRCs of their blocks of BLOCK bytes, as the deep inputs unparse to
+ * hundreds of megabytes.
+ *
+ * usage: java WalkerCheck [file ...]
+ * The exit status is 0 if every input agreed, 1 otherwise.
+ */
+public class WalkerCheck {
+    private static final int CHAIN = 1000000;
+    private static final int NESTING = 10000;
+    private static final long STACK = 2048;
+    private static final int BLOCK = 4096;
+    private static final int WORKERS = 4;
+
+    public static void main(final String[] args) throws Exception {
+        final int[] failed = new int[1];
+        final Exception[] failure = new Exception[1];
+        Thread thread = new Thread(null, new Runnable() {
+            public void run() {
+                try {
+                    failed[0] = checkAll(args);
+                } catch (Exception ex) {
+                    failure[0] = ex;
+                }
+            }
+        }, "WalkerCheck", STACK << 20);
+        thread.start();
+        thread.join();
+        if (failure[0] != null)
+            throw failure[0];
+        System.exit(failed[0] == 0 ? 0 : 1);
+    }
+
+    private static ForkJoinPool pool = new ForkJoinPool(WORKERS);
+
+    // checks every input, returning the number that differed
+    private static int checkAll(String[] args) throws Exception {
+        int failed = 0;
+        int inputs = 0;
+        if (args.length > 0) {
+            for (String file : args) {
+                if (!check(file, readFile(file)))
+                    failed++;
+                inputs++;
+            }
+        } else {
+            MooGen gen = new MooGen();
+            gen.functions = 20;
+            for (int seed = 0; seed < 40; seed++) {
+                gen.seed = seed;
+                gen.errors = seed % 2 == 0 ? 0 : 50;
+                if (!check("MooGen seed " + seed, gen.generate()))
+                    failed++;
+                inputs++;
+            }
+            if (!check("chain of " + CHAIN, chain(CHAIN)))
+                failed++;
+            if (!check("nesting of " + NESTING, nesting(NESTING)))
+                failed++;
+            inputs += 2;
+        }
+        System.out.println(inputs + " inputs checked, " + failed +
+                           " differed");
+        return failed;
+    }
+
+    // analyzes text each way and reports the first difference
+    private static boolean check(String name, String text) throws Exception {
+        ProgramNode program = parse(text);
+        Result expected = recursive(program);
+        String diff = null;
+        if (expected.output != null)
+            diff = compare(expected.output, unparse(program));
+        if (diff != null) {
+            System.out.println(name + ": Unparser " + diff);
+            return false;
+        }
+        program = null;  // the deep trees are big; let this one go
+
+        Result actual = walker(parse(text));
+        diff = expected.compare(actual);
+        if (diff != null) {
+            System.out.println(name + ": NameAnalyzer " + diff);
+            return false;
+        }
+
+        actual = parallel(parse(text));
+        diff = expected.compare(actual);
+        if (diff != null) {
+            System.out.println(name + ": ParallelNameAnalyzer " + diff);
+            return false;
+        }
+        return true;
+    }
+
+    private static Result recursive(ProgramNode program) throws IOException {
+        Result r = new Result();
+        program.nameAnalysis(r.table, r.diags);
+        if (r.diags.hasErrors())
+            return r;
+        r.output = new Fingerprint();
+        PrintWriter p = new PrintWriter(new OutputStreamWriter(r.output,
+                                                               "UTF-8"));
+        program.unparse(p, 0);
+        p.flush();
+        return r;
+    }
+
+    private static Result walker(ProgramNode program) throws IOException {
+        Result r = new Result();
+        new NameAnalyzer(r.table, r.diags).analyze(program);
+        if (!r.diags.hasErrors())
+            r.output = unparse(program);
+        return r;
+    }
+
+    private static Result parallel(ProgramNode program) throws IOException {
+        Result r = new Result();
+        new ParallelNameAnalyzer(r.table, r.diags, pool).analyze(program);
+        if (!r.diags.hasErrors())
+            r.output = unparse(program);
+        return r;
+    }
+
+    // what Unparser writes for program
+    private static Fingerprint unparse(ProgramNode program)
+        throws IOException {
+        Fingerprint out = new Fingerprint();
+        PrintWriter p = new PrintWriter(new OutputStreamWriter(out, "UTF-8"));
+        new Unparser(p).unparse(program, 0);
+        p.flush();
+        return out;
+    }
+
+    // returns where actual first differs from expected, or null if they
+    // are the same
+    private static String compare(Fingerprint expected, Fingerprint actual) {
+        List<Long> a = expected.blocks();
+        List<Long> b = actual.blocks();
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+            if (!a.get(i).equals(b.get(i)))
+                return "output differs within bytes " + (long)i * BLOCK +
+                       " to " + ((long)(i + 1) * BLOCK - 1);
+        }
+        if (expected.count != actual.count)
+            return "output is " + actual.count + " bytes long, not " +
+                   expected.count;
+        return null;
+    }
+
+    // an OutputStream that keeps only the length of what is written to it
+    // and the CRC of each block of BLOCK bytes
+    private static class Fingerprint extends OutputStream {
+        public void write(int b) {
+            write(new byte[] { (byte)b }, 0, 1);
+        }
+
+        public void write(byte[] buf, int off, int len) {
+            while (len > 0) {
+                int n = (int)Math.min(len, BLOCK - count % BLOCK);
+                crc.update(buf, off, n);
+                count += n;
+                off += n;
+                len -= n;
+                if (count % BLOCK == 0) {
+                    full.add(crc.getValue());
+                    crc.reset();
+                }
+            }
+        }
+
+        // the CRCs of all the blocks, the last of which may be short
+        List<Long> blocks() {
+            List<Long> all = new ArrayList<Long>(full);
+            if (count % BLOCK != 0)
+                all.add(crc.getValue());
+            return all;
+        }
+
+        long count;
+        private CRC32 crc = new CRC32();
+        private List<Long> full = new ArrayList<Long>();
+    }
+
+    // what one kind of analysis did to a program
+    private static class Result {
+        SymTable table = new SymTable();
+        Diagnostics diags = new Diagnostics();
+        Fingerprint output;  // the unparsed program, if it has no errors
+
+        // returns how other differs from this, or null if it doesn't
+        String compare(Result other) {
+            List<Diagnostics.Diagnostic> mine = diags.getDiagnostics();
+            List<Diagnostics.Diagnostic> theirs = other.diags.getDiagnostics();
+            for (int i = 0; i < Math.max(mine.size(), theirs.size()); i++) {
+                String a = i < mine.size() ? mine.get(i).toString() : "none";
+                String b = i < theirs.size() ? theirs.get(i).toString()
+                                             : "none";
+                if (!a.equals(b))
+                    return "diagnostic " + (i + 1) + " differs:\n" +
+                           "    expected: " + a + "\n" +
+                           "    actual:   " + b;
+            }
+            if (table.getPeakDepth() != other.table.getPeakDepth() ||
+                table.getPeakEntries() != other.table.getPeakEntries())
+                return "peaks differ: expected depth " +
+                       table.getPeakDepth() + ", entries " +
+                       table.getPeakEntries() + "; actual depth " +
+                       other.table.getPeakDepth() + ", entries " +
+                       other.table.getPeakEntries();
+            if (output == null)  // errors in both, as the diagnostics agree
+                return null;
+            return WalkerCheck.compare(output, other.output);
+        }
+    }
+
+    private static ProgramNode parse(String text) throws Exception {
+        Diagnostics diags = new Diagnostics();
+        parser P = new parser(new Yylex(new StringReader(text), diags),
+                              diags);
+        return (ProgramNode)P.parse().value;
+    }
+
+    // an assignment whose right side adds up n terms
+    private static String chain(int n) {
+        StringBuilder sb = new StringBuilder("int a;\nvoid main() {\na = a");
+        for (int i = 1; i < n; i++) {
+            sb.append(" + a");
+        }
+        sb.append(";\n}\n");
+        return sb.toString();
+    }
+
+    // n while loops nested in each other, each declaring a local
+    private static String nesting(int n) {
+        StringBuilder sb = new StringBuilder("int a;\nvoid main() {\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("while (a) {\nint b;\n");
+        }
+        sb.append("b = a;\n");
+        for (int i = 0; i < n; i++) {
+            sb.append("}\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static String readFile(String file) throws IOException {
+        Reader in = new FileReader(file);
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buf = new char[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                sb.append(buf, 0, n);
+            }
+            return sb.toString();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -13,6 +13,16 @@ import java.util.*;
 // information; for string literals and identifiers, they also contain a
 // string; for integer literals, they also contain an integer value.
 //
+// unparse and nameAnalysis are methods of every node.  Other passes are
+// written as ASTVisitors and run by an ASTWalker, which walks the kids of
+// each node (numKids and kid) without recursion.
+//
+// The compiler unparses with Unparser and analyzes names with
+// NameAnalyzer, visitors that go to any depth.  The recursive unparse and
+// nameAnalysis of the compound nodes say what those must do; WalkerCheck
+// (make walkercheck) checks that the two agree.  The visitors still call
+// the methods of leaves and of declarations other than functions.
+//
 // Here are all the different kinds of AST nodes and what kinds of children
 // they have.  All of these kinds of AST nodes are subclasses of "ASTnode".
 // Indentation indicates further subclassing:
@@ -20,17 +30,17 @@ import java.util.*;
 //     Subclass            Kids
 //     --------            ----
 //     ProgramNode         DeclListNode
-//     DeclListNode        linked list of DeclNode
+//     DeclListNode        list of DeclNode
 //     DeclNode:
 //       VarDeclNode       TypeNode, IdNode, int
 //       FnDeclNode        TypeNode, IdNode, FormalsListNode, FnBodyNode
 //       FormalDeclNode    TypeNode, IdNode
 //       StructDeclNode    IdNode, DeclListNode
 //
-//     FormalsListNode     linked list of FormalDeclNode
+//     FormalsListNode     list of FormalDeclNode
 //     FnBodyNode          DeclListNode, StmtListNode
-//     StmtListNode        linked list of StmtNode
-//     ExpListNode         linked list of ExpNode
+//     StmtListNode        list of StmtNode
+//     ExpListNode         list of ExpNode
 //
 //     TypeNode:
 //       IntNode           -- none --
@@ -78,14 +88,14 @@ import java.util.*;
 //         GreaterEqNode
 //
 // Here are the different kinds of AST nodes again, organized according to
-// whether they are leaves, internal nodes with linked lists of kids, or
+// whether they are leaves, internal nodes with lists of kids, or
 // internal nodes with a fixed number of kids:
 //
 // (1) Leaf nodes:
 //        IntNode,   BoolNode,  VoidNode,  IntLitNode,  StrLitNode,
 //        TrueNode,  FalseNode, IdNode
 //
-// (2) Internal nodes with (possibly empty) linked lists of children:
+// (2) Internal nodes with (possibly empty) lists of children:
 //        DeclListNode, FormalsListNode, StmtListNode, ExpListNode
 //
 // (3) Internal nodes with fixed numbers of kids:
@@ -109,11 +119,61 @@ abstract class ASTnode {
     // every subclass must provide an unparse operation
     abstract public void unparse(PrintWriter p, int indent);
     
-    abstract public void nameAnalysis(SymTable table);
+    abstract public void nameAnalysis(SymTable table, Diagnostics diags);
+
+    // passes that are not methods of the nodes are ASTVisitors, run by an
+    // ASTWalker; these call the visitor's enter and leave for this node
+    abstract public boolean enter(ASTVisitor v);
+    abstract public void leave(ASTVisitor v);
+
+    // the node's kids, in source order, for the walker; a missing
+    // optional kid (like the expression of a plain "return;") is null
+    public int numKids() {
+        return 0;
+    }
+
+    public ASTnode kid(int i) {
+        return noKid(i);
+    }
+
+    protected ASTnode noKid(int i) {
+        throw new IndexOutOfBoundsException(getClass().getName() +
+                                            " has no kid " + i);
+    }
 
     // this method can be used by the unparse methods to do indenting
     protected void doIndent(PrintWriter p, int indent) {
-        for (int k=0; k<indent; k++) p.print(" ");
+        indent(p, indent);
+    }
+
+    // writes indent spaces with one call, cut from a string of spaces
+    // that is lengthened when a deeper indent comes along
+    static void indent(PrintWriter p, int indent) {
+        if (indent <= 0)
+            return;
+        String spaces = theSpaces;
+        if (spaces.length() < indent) {
+            char[] more = new char[Math.max(indent, 2 * spaces.length())];
+            Arrays.fill(more, ' ');
+            spaces = new String(more);
+            theSpaces = spaces;
+        }
+        p.write(spaces, 0, indent);
+    }
+
+    private static volatile String theSpaces = "                ";
+
+    // the list nodes keep their kids in an array no longer than the list;
+    // the many empty lists (blocks without declarations, calls without
+    // arguments) all share one immutable list
+    protected static <T> List<T> compact(List<T> list) {
+        if (list.isEmpty())
+            return Collections.emptyList();
+        if (list instanceof ArrayList) {
+            ((ArrayList<T>)list).trimToSize();
+            return list;
+        }
+        return new ArrayList<T>(list);
     }
 }
 
@@ -132,13 +192,29 @@ class ProgramNode extends ASTnode {
      * Creates an empty symbol table for the outermost scope, then processes
      * all of the globals, struct defintions, and functions in the program.
      */
-    public void nameAnalysis() {
+    public void nameAnalysis(Diagnostics diags) {
         SymTable symTab = new SymTable();
-        nameAnalysis(symTab);
+        nameAnalysis(symTab, diags);
     }
     
-    public void nameAnalysis(SymTable table) {
-	    myDeclList.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+	    myDeclList.nameAnalysis(table, diags);
+    }
+
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 1;
+    }
+
+    public ASTnode kid(int i) {
+        return i == 0 ? myDeclList : noKid(i);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -151,7 +227,23 @@ class ProgramNode extends ASTnode {
 
 class DeclListNode extends ASTnode {
     public DeclListNode(List<DeclNode> S) {
-        myDecls = S;
+        myDecls = compact(S);
+    }
+
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return myDecls.size();
+    }
+
+    public ASTnode kid(int i) {
+        return myDecls.get(i);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -166,15 +258,16 @@ class DeclListNode extends ASTnode {
         }
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
         for(DeclNode node: myDecls) {
-            node.nameAnalysis(table);
+            node.nameAnalysis(table, diags);
         }
     }
     
-    public void nameAnalysis(SymTable globalTable, SymTable typeScopeTable) {
+    public void nameAnalysis(SymTable globalTable, SymTable typeScopeTable,
+                             Diagnostics diags) {
         for(DeclNode node: myDecls) {
-            node.nameAnalysis(globalTable, typeScopeTable);
+            node.nameAnalysis(globalTable, typeScopeTable, diags);
         }
     }
 
@@ -184,7 +277,23 @@ class DeclListNode extends ASTnode {
 
 class FormalsListNode extends ASTnode {
     public FormalsListNode(List<FormalDeclNode> S) {
-        myFormals = S;
+        myFormals = compact(S);
+    }
+
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return myFormals.size();
+    }
+
+    public ASTnode kid(int i) {
+        return myFormals.get(i);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -198,9 +307,9 @@ class FormalsListNode extends ASTnode {
         } 
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
         for(FormalDeclNode node: myFormals) {
-            node.nameAnalysis(table);
+            node.nameAnalysis(table, diags);
         }
     }
     
@@ -222,14 +331,34 @@ class FnBodyNode extends ASTnode {
         myStmtList = stmtList;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 2;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myDeclList;
+        case 1: return myStmtList;
+        }
+        return noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         myDeclList.unparse(p, indent);
         myStmtList.unparse(p, indent);
     }
     
-    public void nameAnalysis(SymTable table) {
-        myDeclList.nameAnalysis(table);
-        myStmtList.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myDeclList.nameAnalysis(table, diags);
+        myStmtList.nameAnalysis(table, diags);
     }
 
     // 2 kids
@@ -239,7 +368,23 @@ class FnBodyNode extends ASTnode {
 
 class StmtListNode extends ASTnode {
     public StmtListNode(List<StmtNode> S) {
-        myStmts = S;
+        myStmts = compact(S);
+    }
+
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return myStmts.size();
+    }
+
+    public ASTnode kid(int i) {
+        return myStmts.get(i);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -249,9 +394,9 @@ class StmtListNode extends ASTnode {
         }
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
         for(StmtNode node: myStmts) {
-            node.nameAnalysis(table);
+            node.nameAnalysis(table, diags);
         }
     }
 
@@ -261,7 +406,23 @@ class StmtListNode extends ASTnode {
 
 class ExpListNode extends ASTnode {
     public ExpListNode(List<ExpNode> S) {
-        myExps = S;
+        myExps = compact(S);
+    }
+
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return myExps.size();
+    }
+
+    public ASTnode kid(int i) {
+        return myExps.get(i);
     }
 
     public void unparse(PrintWriter p, int indent) {
@@ -275,9 +436,9 @@ class ExpListNode extends ASTnode {
         } 
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
         for(ExpNode node: myExps) {
-            node.nameAnalysis(table);
+            node.nameAnalysis(table, diags);
         }
     }
 
@@ -290,8 +451,9 @@ class ExpListNode extends ASTnode {
 // **********************************************************************
 
 abstract class DeclNode extends ASTnode {
-    public abstract void nameAnalysis(SymTable table);
-    public void nameAnalysis(SymTable typeTable, SymTable nameTable) {}
+    public abstract void nameAnalysis(SymTable table, Diagnostics diags);
+    public void nameAnalysis(SymTable typeTable, SymTable nameTable,
+                             Diagnostics diags) {}
 }
 
 class VarDeclNode extends DeclNode {
@@ -301,6 +463,26 @@ class VarDeclNode extends DeclNode {
         mySize = size;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 2;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myType;
+        case 1: return myId;
+        }
+        return noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         myType.unparse(p, 0);
@@ -309,46 +491,53 @@ class VarDeclNode extends DeclNode {
         p.println(";");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myType.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myType.nameAnalysis(table, diags);
         if(myType instanceof VoidNode) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Non-function declared void");
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.NAME,
+                        "Non-function declared void");
         }
         try {
             if(myType instanceof StructNode) {
                 StructNode myStructType = (StructNode)myType;
-                table.addDecl(myId.getId(), new StructSym(myStructType.getDefinition(table)));
+                table.addDecl(myId.getNameId(), new StructSym(myStructType.getDefinition(table)));
             } else {
-                table.addDecl(myId.getId(), new SemSym(myType.getType()));
+                table.addDecl(myId.getNameId(), new SemSym(myType.getType()));
             }
         } catch(DuplicateSymException ex) {
-          ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Multiply declared identifier");
+          diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.NAME,
+                      "Multiply declared identifier");
         } catch(EmptySymTableException ex) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Internal Compiler Error. Empty Sym Table");
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.INTERNAL,
+                        "Internal Compiler Error. Empty Sym Table");
         }
         
-        myId.nameAnalysis(table);
+        myId.nameAnalysis(table, diags);
     }
     
-    public void nameAnalysis(SymTable typeTable, SymTable nameTable) {
-        myType.nameAnalysis(typeTable);
+    public void nameAnalysis(SymTable typeTable, SymTable nameTable,
+                             Diagnostics diags) {
+        myType.nameAnalysis(typeTable, diags);
         if(myType instanceof VoidNode) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Non-function declared void");
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.NAME,
+                        "Non-function declared void");
         }
         try {
             if(myType instanceof StructNode) {
                 StructNode myStructType = (StructNode)myType;
-                nameTable.addDecl(myId.getId(), new StructSym(myStructType.getDefinition(typeTable)));
+                nameTable.addDecl(myId.getNameId(), new StructSym(myStructType.getDefinition(typeTable)));
             } else {
-                nameTable.addDecl(myId.getId(), new SemSym(myType.getType()));
+                nameTable.addDecl(myId.getNameId(), new SemSym(myType.getType()));
             }
         } catch(DuplicateSymException ex) {
-          ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Multiply declared identifier");
+          diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.NAME,
+                      "Multiply declared identifier");
         } catch(EmptySymTableException ex) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Internal Compiler Error. Empty Sym Table");
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.INTERNAL,
+                        "Internal Compiler Error. Empty Sym Table");
         }
         
-        myId.nameAnalysis(nameTable);
+        myId.nameAnalysis(nameTable, diags);
     }
 
     // 3 kids
@@ -370,6 +559,28 @@ class FnDeclNode extends DeclNode {
         myBody = body;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 4;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myType;
+        case 1: return myId;
+        case 2: return myFormalsList;
+        case 3: return myBody;
+        }
+        return noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         myType.unparse(p, 0);
@@ -382,26 +593,35 @@ class FnDeclNode extends DeclNode {
         p.println("}\n");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myType.nameAnalysis(table);
-        String[] types = myFormalsList.getTypes();
-        try {
-        table.addDecl(myId.getId(), new FnSym(myType.getType(), types));
-        } catch(DuplicateSymException ex) {
-          ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Multiply declared identifier");
-        } catch(EmptySymTableException ex) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Internal Compiler Error. Empty Sym Table");
-        }
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        declare(table, diags);
         table.addScope();
-        myFormalsList.nameAnalysis(table);
-        myBody.nameAnalysis(table);
+        myFormalsList.nameAnalysis(table, diags);
+        myBody.nameAnalysis(table, diags);
         try {
             table.removeScope();
         } catch(EmptySymTableException ex) {
-            ErrMsg.fatal(0, 0, "Internal Compiler Error: Empty Sym table");
+            diags.fatal(0, 0, Diagnostics.INTERNAL,
+                        "Internal Compiler Error: Empty Sym table");
         }
         
-        myId.nameAnalysis(table);
+        myId.nameAnalysis(table, diags);
+    }
+
+    // adds the function to table; the scope of its formals and body is
+    // left to the caller
+    public void declare(SymTable table, Diagnostics diags) {
+        myType.nameAnalysis(table, diags);
+        String[] types = myFormalsList.getTypes();
+        try {
+        table.addDecl(myId.getNameId(), new FnSym(myType.getType(), types));
+        } catch(DuplicateSymException ex) {
+          diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.NAME,
+                      "Multiply declared identifier");
+        } catch(EmptySymTableException ex) {
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.INTERNAL,
+                        "Internal Compiler Error. Empty Sym Table");
+        }
     }
 
     // 4 kids
@@ -417,26 +637,49 @@ class FormalDeclNode extends DeclNode {
         myId = id;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 2;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myType;
+        case 1: return myId;
+        }
+        return noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         myType.unparse(p, 0);
         p.print(" ");
         p.print(myId.getId());
     }
     
-    public void nameAnalysis(SymTable table) {
-        myType.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myType.nameAnalysis(table, diags);
         if(myType instanceof VoidNode) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Non-function declared void");
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.NAME,
+                        "Non-function declared void");
         }
         try {
-            table.addDecl(myId.getId(), new SemSym(myType.getType()));
+            table.addDecl(myId.getNameId(), new SemSym(myType.getType()));
         } catch(DuplicateSymException ex) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Multiply declared identifier");
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.NAME,
+                        "Multiply declared identifier");
         } catch(EmptySymTableException ex) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Internal Compiler Error. Empty Sym Table");
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.INTERNAL,
+                        "Internal Compiler Error. Empty Sym Table");
         }
         
-        myId.nameAnalysis(table);
+        myId.nameAnalysis(table, diags);
     }
     
     public String getType() {
@@ -454,6 +697,26 @@ class StructDeclNode extends DeclNode {
         myDeclList = declList;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 2;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myId;
+        case 1: return myDeclList;
+        }
+        return noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("struct ");
@@ -465,18 +728,20 @@ class StructDeclNode extends DeclNode {
 
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
         SymTable memberTable = new SymTable();
-        myDeclList.nameAnalysis(table, memberTable);
+        myDeclList.nameAnalysis(table, memberTable, diags);
         try {
-            table.addDecl(myId.getId(), new StructDefSym(myId.getId(), memberTable));
+            table.addDecl(myId.getNameId(), new StructDefSym(myId.getId(), memberTable));
         } catch(DuplicateSymException ex) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Multiply declared identifier");
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.NAME,
+                        "Multiply declared identifier");
         } catch(EmptySymTableException ex) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Internal Compiler Error. Empty Sym Table");
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.INTERNAL,
+                        "Internal Compiler Error. Empty Sym Table");
         }
         
-        myId.nameAnalysis(table);
+        myId.nameAnalysis(table, diags);
     }
 
     // 2 kids
@@ -496,6 +761,14 @@ class IntNode extends TypeNode {
     public IntNode() {
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         p.print("int");
     }
@@ -504,7 +777,7 @@ class IntNode extends TypeNode {
         return "int";
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
     }
 }
 
@@ -512,6 +785,14 @@ class BoolNode extends TypeNode {
     public BoolNode() {
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         p.print("bool");
     }
@@ -520,7 +801,7 @@ class BoolNode extends TypeNode {
         return "bool";
     }
 
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
     }
 }
 
@@ -528,6 +809,14 @@ class VoidNode extends TypeNode {
     public VoidNode() {
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         p.print("void");
     }
@@ -536,7 +825,7 @@ class VoidNode extends TypeNode {
         return "void";
     }
 
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
     }
 }
 
@@ -545,19 +834,36 @@ class StructNode extends TypeNode {
 		myId = id;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 1;
+    }
+
+    public ASTnode kid(int i) {
+        return i == 0 ? myId : noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         p.print("struct ");
 		myId.unparse(p, 0);
     }
 
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
         if(getDefinition(table) == null) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Invalid name of struct type");
+            diags.fatal(myId.getLineNum(), myId.getCharNum(), Diagnostics.NAME,
+                        "Invalid name of struct type");
         }
     }
     
     public StructDefSym getDefinition(SymTable table) {
-        SemSym def = table.lookupStruct(myId.getId());
+        SemSym def = table.lookupStruct(myId.getNameId());
         if(def instanceof StructDefSym) {
             return (StructDefSym)def;
         }
@@ -585,14 +891,30 @@ class AssignStmtNode extends StmtNode {
         myAssign = assign;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 1;
+    }
+
+    public ASTnode kid(int i) {
+        return i == 0 ? myAssign : noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         myAssign.unparse(p, -1); // no parentheses
         p.println(";");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myAssign.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myAssign.nameAnalysis(table, diags);
     }
 
     // 1 kid
@@ -604,14 +926,30 @@ class PostIncStmtNode extends StmtNode {
         myExp = exp;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 1;
+    }
+
+    public ASTnode kid(int i) {
+        return i == 0 ? myExp : noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         myExp.unparse(p, 0);
         p.println("++;");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myExp.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myExp.nameAnalysis(table, diags);
     }
 
     // 1 kid
@@ -623,14 +961,30 @@ class PostDecStmtNode extends StmtNode {
         myExp = exp;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 1;
+    }
+
+    public ASTnode kid(int i) {
+        return i == 0 ? myExp : noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         myExp.unparse(p, 0);
         p.println("--;");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myExp.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myExp.nameAnalysis(table, diags);
     }
 
     // 1 kid
@@ -642,6 +996,22 @@ class ReadStmtNode extends StmtNode {
         myExp = e;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 1;
+    }
+
+    public ASTnode kid(int i) {
+        return i == 0 ? myExp : noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("cin >> ");
@@ -649,8 +1019,8 @@ class ReadStmtNode extends StmtNode {
         p.println(";");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myExp.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myExp.nameAnalysis(table, diags);
     }
 
     // 1 kid (actually can only be an IdNode or an ArrayExpNode)
@@ -662,6 +1032,22 @@ class WriteStmtNode extends StmtNode {
         myExp = exp;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 1;
+    }
+
+    public ASTnode kid(int i) {
+        return i == 0 ? myExp : noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("cout << ");
@@ -669,8 +1055,8 @@ class WriteStmtNode extends StmtNode {
         p.println(";");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myExp.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myExp.nameAnalysis(table, diags);
     }
 
     // 1 kid
@@ -684,6 +1070,27 @@ class IfStmtNode extends StmtNode {
         myStmtList = slist;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 3;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myExp;
+        case 1: return myDeclList;
+        case 2: return myStmtList;
+        }
+        return noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("if (");
@@ -695,15 +1102,16 @@ class IfStmtNode extends StmtNode {
         p.println("}");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myExp.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myExp.nameAnalysis(table, diags);
         table.addScope();
-        myDeclList.nameAnalysis(table);
-        myStmtList.nameAnalysis(table);
+        myDeclList.nameAnalysis(table, diags);
+        myStmtList.nameAnalysis(table, diags);
         try {
         table.removeScope();
         } catch(EmptySymTableException ex) {
-            ErrMsg.fatal(0, 0, "Internal Compiler Error: Empty Sym table");
+            diags.fatal(0, 0, Diagnostics.INTERNAL,
+                        "Internal Compiler Error: Empty Sym table");
         }
     }
 
@@ -724,6 +1132,29 @@ class IfElseStmtNode extends StmtNode {
         myElseStmtList = slist2;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 5;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myExp;
+        case 1: return myThenDeclList;
+        case 2: return myThenStmtList;
+        case 3: return myElseDeclList;
+        case 4: return myElseStmtList;
+        }
+        return noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("if (");
@@ -741,26 +1172,32 @@ class IfElseStmtNode extends StmtNode {
         p.println("}");        
     }
     
-    public void nameAnalysis(SymTable table) {
-        myExp.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myExp.nameAnalysis(table, diags);
         table.addScope();
-        myThenDeclList.nameAnalysis(table);
-        myThenStmtList.nameAnalysis(table);
+        myThenDeclList.nameAnalysis(table, diags);
+        myThenStmtList.nameAnalysis(table, diags);
         try {
             table.removeScope();
         } catch(EmptySymTableException ex) {
-            ErrMsg.fatal(0, 0, "Internal Compiler Error: Empty Sym table");
+            diags.fatal(0, 0, Diagnostics.INTERNAL,
+                        "Internal Compiler Error: Empty Sym table");
         }
         table.addScope();
-        myElseDeclList.nameAnalysis(table);
-        myElseStmtList.nameAnalysis(table);
+        myElseDeclList.nameAnalysis(table, diags);
+        myElseStmtList.nameAnalysis(table, diags);
         try {
             table.removeScope();
         } catch(EmptySymTableException ex) {
-            ErrMsg.fatal(0, 0, "Internal Compiler Error: Empty Sym table");
+            diags.fatal(0, 0, Diagnostics.INTERNAL,
+                        "Internal Compiler Error: Empty Sym table");
         }
     }
 
+    // the declarations of the else part, which starts a new scope
+    public DeclListNode getElseDeclList() {
+        return myElseDeclList;
+    }
 
     // 5 kids
     private ExpNode myExp;
@@ -777,6 +1214,27 @@ class WhileStmtNode extends StmtNode {
         myStmtList = slist;
     }
 	
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 3;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myExp;
+        case 1: return myDeclList;
+        case 2: return myStmtList;
+        }
+        return noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("while (");
@@ -788,15 +1246,16 @@ class WhileStmtNode extends StmtNode {
         p.println("}");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myExp.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myExp.nameAnalysis(table, diags);
         table.addScope();
-        myDeclList.nameAnalysis(table);
-        myStmtList.nameAnalysis(table);
+        myDeclList.nameAnalysis(table, diags);
+        myStmtList.nameAnalysis(table, diags);
         try {
             table.removeScope();
         } catch(EmptySymTableException ex) {
-            ErrMsg.fatal(0, 0, "Internal Compiler Error: Empty Sym table");
+            diags.fatal(0, 0, Diagnostics.INTERNAL,
+                        "Internal Compiler Error: Empty Sym table");
         }
     }
 
@@ -811,14 +1270,30 @@ class CallStmtNode extends StmtNode {
         myCall = call;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 1;
+    }
+
+    public ASTnode kid(int i) {
+        return i == 0 ? myCall : noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         myCall.unparse(p, indent);
         p.println(";");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myCall.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myCall.nameAnalysis(table, diags);
     }
 
     // 1 kid
@@ -830,6 +1305,22 @@ class ReturnStmtNode extends StmtNode {
         myExp = exp;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 1;
+    }
+
+    public ASTnode kid(int i) {
+        return i == 0 ? myExp : noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         doIndent(p, indent);
         p.print("return");
@@ -840,9 +1331,9 @@ class ReturnStmtNode extends StmtNode {
         p.println(";");
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
         if(myExp != null) {
-            myExp.nameAnalysis(table);
+            myExp.nameAnalysis(table, diags);
         }
     }
 
@@ -864,11 +1355,19 @@ class IntLitNode extends ExpNode {
         myIntVal = intVal;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         p.print(myIntVal);
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
     }
 
     private int myLineNum;
@@ -883,11 +1382,19 @@ class StringLitNode extends ExpNode {
         myStrVal = strVal;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         p.print(myStrVal);
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
     }
 
 
@@ -902,11 +1409,19 @@ class TrueNode extends ExpNode {
         myCharNum = charNum;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         p.print("true");
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
     }
 
     private int myLineNum;
@@ -919,11 +1434,19 @@ class FalseNode extends ExpNode {
         myCharNum = charNum;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         p.print("false");
     }
     
-    public void nameAnalysis(SymTable table) {
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
     }
 
     private int myLineNum;
@@ -931,12 +1454,21 @@ class FalseNode extends ExpNode {
 }
 
 class IdNode extends ExpNode {
-    public IdNode(int lineNum, int charNum, String strVal) {
+    public IdNode(int lineNum, int charNum, int nameId, String strVal) {
         myLineNum = lineNum;
         myCharNum = charNum;
+        myNameId = nameId;
         myStrVal = strVal;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
         p.print(myStrVal);
         if(sym != null && sym.getType() != null) {
@@ -946,10 +1478,10 @@ class IdNode extends ExpNode {
         }
     }
     
-    public void nameAnalysis(SymTable table) {
-        sym = table.lookupGlobal(myStrVal);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        sym = table.lookupGlobal(myNameId);
         if (sym == null)
-            ErrMsg.fatal(myLineNum, myCharNum, "Undeclared identifier");
+            diags.fatal(myLineNum, myCharNum, Diagnostics.NAME, "Undeclared identifier");
     }
     
     public int getLineNum() {
@@ -964,12 +1496,18 @@ class IdNode extends ExpNode {
         return myStrVal;
     }
 
+    // the id of this name in the compilation's NamePool
+    public int getNameId() {
+        return myNameId;
+    }
+
     public SemSym getSym() {
         return sym;
     }
 
     private int myLineNum;
     private int myCharNum;
+    private int myNameId;
     private String myStrVal;
     private SemSym sym;
 }
@@ -980,6 +1518,26 @@ class DotAccessExpNode extends ExpNode {
         myId = id;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 2;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myLoc;
+        case 1: return myId;
+        }
+        return noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myLoc.unparse(p, 0);
@@ -987,45 +1545,43 @@ class DotAccessExpNode extends ExpNode {
 		myId.unparse(p, 0);
     }
     
-    public void nameAnalysis(SymTable table) {
-        getSym(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        getSym(table, diags);
     }
     
-    public SemSym getSym(SymTable table) {
-        StructSym locSym = null;
-        if(myLoc instanceof IdNode) {
-            IdNode myId = (IdNode)myLoc;
-            myId.nameAnalysis(table);
-            SemSym sym = myId.getSym();
-            if(!(sym instanceof StructSym)) {
-                ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Dot-access of a non-struct type");
-                return null;
-            }
-            locSym = (StructSym)sym;
+    // looks up the field this accesses; a chain like a.b.c is resolved
+    // from the inside out in one loop, so chains of any length will do
+    public SemSym getSym(SymTable table, Diagnostics diags) {
+        ArrayList<DotAccessExpNode> chain = new ArrayList<DotAccessExpNode>();
+        ExpNode loc = this;
+        while (loc instanceof DotAccessExpNode) {
+            chain.add((DotAccessExpNode)loc);
+            loc = ((DotAccessExpNode)loc).myLoc;
         }
-        if(myLoc instanceof DotAccessExpNode) {
-            DotAccessExpNode myAccess = (DotAccessExpNode)myLoc;
-            SemSym sym = myAccess.getSym(table);
-            IdNode myId = myAccess.getId();
-            if(!(sym instanceof StructSym)) {
-                ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Dot-access of a non-struct type");
-                return null;
+        IdNode id = (IdNode)loc;  // the struct the chain starts from
+        id.nameAnalysis(table, diags);
+        SemSym sym = id.getSym();
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            IdNode field = chain.get(i).myId;
+            if (!(sym instanceof StructSym)) {
+                diags.fatal(id.getLineNum(), id.getCharNum(), Diagnostics.NAME,
+                            "Dot-access of a non-struct type");
+                sym = null;
+            } else {
+                field.nameAnalysis(((StructSym)sym).getDef().getFields(),
+                                   diags);
+                sym = field.getSym();
+                if (sym == null) {
+                    diags.fatal(field.getLineNum(), field.getCharNum(),
+                                Diagnostics.NAME,
+                                "Invalid struct field name");
+                }
             }
-            locSym = (StructSym)sym;
-        }
-        myId.nameAnalysis(locSym.getDef().getFields());
-        SemSym accessedSym = myId.getSym();
-        if(accessedSym == null) {
-            ErrMsg.fatal(myId.getLineNum(), myId.getCharNum(), "Invalid struct field name");
-            return null;
+            id = field;
         }
-        return accessedSym;
+        return sym;
     }
     
-    private IdNode getId() {
-        return myId;
-    }
-
     // 2 kids
     private ExpNode myLoc;	
     private IdNode myId;
@@ -1037,6 +1593,26 @@ class AssignNode extends ExpNode {
         myExp = exp;
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 2;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myLhs;
+        case 1: return myExp;
+        }
+        return noKid(i);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 		if (indent != -1)  p.print("(");
 	    myLhs.unparse(p, 0);
@@ -1045,9 +1621,9 @@ class AssignNode extends ExpNode {
 		if (indent != -1)  p.print(")");
     }
     
-    public void nameAnalysis(SymTable table) {
-      myLhs.nameAnalysis(table);
-      myExp.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+      myLhs.nameAnalysis(table, diags);
+      myExp.nameAnalysis(table, diags);
     }
 
     // 2 kids
@@ -1063,7 +1639,27 @@ class CallExpNode extends ExpNode {
 
     public CallExpNode(IdNode name) {
         myId = name;
-        myExpList = new ExpListNode(new LinkedList<ExpNode>());
+        myExpList = new ExpListNode(Collections.<ExpNode>emptyList());
+    }
+
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
+    public int numKids() {
+        return 2;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myId;
+        case 1: return myExpList;
+        }
+        return noKid(i);
     }
 
     // ** unparse **
@@ -1085,11 +1681,11 @@ class CallExpNode extends ExpNode {
 		p.print(")");
     }
     
-    public void nameAnalysis(SymTable table) {
-        myId.nameAnalysis(table);
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myId.nameAnalysis(table, diags);
 
         if(myExpList != null) {
-            myExpList.nameAnalysis(table);
+            myExpList.nameAnalysis(table, diags);
         }
     }
 
@@ -1103,8 +1699,16 @@ abstract class UnaryExpNode extends ExpNode {
         myExp = exp;
     }
     
-    public void nameAnalysis(SymTable table) {
-        myExp.nameAnalysis(table);
+    public int numKids() {
+        return 1;
+    }
+
+    public ASTnode kid(int i) {
+        return i == 0 ? myExp : noKid(i);
+    }
+
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myExp.nameAnalysis(table, diags);
     }
 
     // one child
@@ -1117,9 +1721,21 @@ abstract class BinaryExpNode extends ExpNode {
         myExp2 = exp2;
     }
     
-    public void nameAnalysis(SymTable table) {
-        myExp1.nameAnalysis(table);
-        myExp2.nameAnalysis(table);
+    public int numKids() {
+        return 2;
+    }
+
+    public ASTnode kid(int i) {
+        switch (i) {
+        case 0: return myExp1;
+        case 1: return myExp2;
+        }
+        return noKid(i);
+    }
+
+    public void nameAnalysis(SymTable table, Diagnostics diags) {
+        myExp1.nameAnalysis(table, diags);
+        myExp2.nameAnalysis(table, diags);
     }
 
     // two kids
@@ -1136,6 +1752,14 @@ class UnaryMinusNode extends UnaryExpNode {
         super(exp);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(-");
 		myExp.unparse(p, 0);
@@ -1148,6 +1772,14 @@ class NotNode extends UnaryExpNode {
         super(exp);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(!");
 		myExp.unparse(p, 0);
@@ -1164,6 +1796,14 @@ class PlusNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1178,6 +1818,14 @@ class MinusNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1192,6 +1840,14 @@ class TimesNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1206,6 +1862,14 @@ class DivideNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1220,6 +1884,14 @@ class AndNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1234,6 +1906,14 @@ class OrNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1248,6 +1928,14 @@ class EqualsNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1262,6 +1950,14 @@ class NotEqualsNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1276,6 +1972,14 @@ class LessNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1290,6 +1994,14 @@ class GreaterNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1304,6 +2016,14 @@ class LessEqNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -1318,6 +2038,14 @@ class GreaterEqNode extends BinaryExpNode {
         super(exp1, exp2);
     }
 
+    public boolean enter(ASTVisitor v) {
+        return v.enter(this);
+    }
+
+    public void leave(ASTVisitor v) {
+        v.leave(this);
+    }
+
     public void unparse(PrintWriter p, int indent) {
 	    p.print("(");
 		myExp1.unparse(p, 0);
@@ -0,0 +1,45 @@
+#!/bin/bash
+# Compiles a file through a running compile server (java P4 --server), with
+# the same arguments and exit status as "java P4 [option ...] <file> <output>".
+# If no server is listening on port $P4_PORT (default 5360), or its token
+# file (~/.p4server.<port>, readable only by the user who started it) can't
+# be read, P4 is run directly.
+
+port=${P4_PORT:-5360}
+token=$(cat "$HOME/.p4server.$port" 2>/dev/null)
+
+abspath() {
+    case $1 in
+        /*) printf '%s' "$1" ;;
+        *)  printf '%s/%s' "$PWD" "$1" ;;
+    esac
+}
+
+files=()
+request=
+for arg in "$@"; do
+    case $arg in
+        --stats=*) request+=$'\t'"--stats=$(abspath "${arg#*=}")" ;;
+        --*)       request+=$'\t'"$arg" ;;
+        *)         files+=("$(abspath "$arg")") ;;
+    esac
+done
+
+if [ ${#files[@]} -ne 2 ] || [ -z "$token" ] ||
+   ! { exec 3<>/dev/tcp/127.0.0.1/$port; } 2>/dev/null; then
+    exec java P4 "$@"
+fi
+
+printf '%s\tcompile\t%s\t%s%s\n' "$token" "${files[0]}" "${files[1]}" \
+    "$request" >&3
+
+status=255
+while IFS= read -r line <&3; do
+    case $line in
+        "O "*) printf '%s\n' "${line:2}" ;;
+        "E "*) printf '%s\n' "${line:2}" >&2 ;;
+        "S "*) status=${line:2} ;;
+    esac
+done
+exec 3<&-
+exit $((status & 255))